@@ -0,0 +1,17 @@
+package com.maeng.querydsl.dto;
+
+/*
+ * searchFields 에서 select 할 컬럼.
+ * TEAM_NAME 만 team 조인이 필요함 (TEAM_ID 는 member.team_id FK 컬럼으로 조회)
+ */
+public enum MemberTeamField {
+    MEMBER_ID,
+    USERNAME,
+    AGE,
+    TEAM_ID,
+    TEAM_NAME;
+
+    public boolean requiresTeamJoin() {
+        return this == TEAM_NAME;
+    }
+}
@@ -2,11 +2,16 @@ package com.maeng.querydsl.entity;
 
 import com.maeng.querydsl.entity.Team;
 import lombok.*;
+import org.hibernate.Hibernate;
 import org.springframework.util.ObjectUtils;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age", "team"})
@@ -39,6 +44,9 @@ public class Member {
 
     private void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this);
+        // 로딩되지 않은 팀(프록시)이나 members 컬렉션은 초기화하지 않고 FK 만 설정함
+        if (Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().add(this);
+        }
     }
 }
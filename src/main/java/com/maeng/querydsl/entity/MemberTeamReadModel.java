@@ -0,0 +1,45 @@
+package com.maeng.querydsl.entity;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/*
+ * member + team 을 조인 없이 읽기 위한 비정규화 테이블. Member 저장, 팀 이름 변경, 벌크 update 시 같은 트랜잭션에서 갱신됨.
+ */
+@Entity
+@Table(name = "member_team_read_model", indexes = {
+        @Index(name = "idx_read_model_username", columnList = "username"),
+        @Index(name = "idx_read_model_age", columnList = "age"),
+        @Index(name = "idx_read_model_team_name_age", columnList = "team_name, age")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberTeamReadModel {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+
+    /*
+     * teamName 은 호출한 쪽에서 넘겨받음. member.getTeam() 이 프록시여도 초기화하지 않기 위해서
+     */
+    public MemberTeamReadModel(Member member, String teamName) {
+        this.memberId = member.getId();
+        update(member, teamName);
+    }
+
+    public void update(Member member, String teamName) {
+        this.username = member.getUsername();
+        this.age = member.getAge();
+        this.teamId = member.getTeam() == null ? null : member.getTeam().getId();
+        this.teamName = teamName;
+    }
+}
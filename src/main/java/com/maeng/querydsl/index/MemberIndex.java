@@ -0,0 +1,243 @@
+package com.maeng.querydsl.index;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+ * member/team 프로세스 내 인덱스 (member id, username 조회).
+ * 매핑한 스냅샷 + 스냅샷 이후 추가된 member (id > high-water mark) overlay 로 구성.
+ * ApplicationReadyEvent 안에서 적재하므로 적재가 끝나야 readiness 가 ACCEPTING_TRAFFIC 이 됨.
+ *
+ * 스냅샷에 들어간 row 의 수정/삭제는 반영하지 않음. 추가만 되는 조회용 인덱스로 사용.
+ * 아직 조회 경로에 연결하지 않은 구성 요소. 수정/삭제가 반영되지 않으므로 쓰는 쪽에서 허용되는 경우에만 연결할 것.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.index", name = "enabled", havingValue = "true")
+public class MemberIndex {
+
+    private static final String CATCH_UP = "select m.id, m.username, m.age, t.id, t.name"
+            + " from member m left join team t on t.id = m.team_id"
+            + " where m.id > ? order by m.id";
+    private static final String MAX_ID = "select coalesce(max(id), 0) from member";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberIndexProperties properties;
+
+    private volatile State state = new State(MemberSnapshot.empty());
+    private volatile boolean ready;
+
+    public MemberIndex(JdbcTemplate jdbcTemplate, MemberIndexProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        if (Files.exists(properties.getSnapshot())) {
+            try {
+                MemberSnapshot snapshot = MemberSnapshot.map(properties.getSnapshot());
+                // DB 를 다시 만든 경우 스냅샷이 DB 보다 앞서 있으므로 버림
+                Long maxId = jdbcTemplate.queryForObject(MAX_ID, Long.class);
+                if (snapshot.highWaterMark() <= maxId) {
+                    state = new State(snapshot);
+                } else {
+                    log.warn("Ignoring member snapshot ahead of database (snapshot={}, database={})",
+                            snapshot.highWaterMark(), maxId);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Ignoring unreadable member snapshot {}", properties.getSnapshot(), e);
+            }
+        }
+
+        int snapshotRows = state.snapshot.size();
+        int caughtUp = catchUp();
+        ready = true;
+        log.info("Member index ready in {}ms (snapshot rows={}, caught up={})",
+                System.currentTimeMillis() - start, snapshotRows, caughtUp);
+    }
+
+    /*
+     * high-water mark 이후 추가된 member 를 overlay 에 넣음.
+     * IDENTITY id 는 commit 순서와 다르게 보일 수 있어서 (늦게 commit 된 작은 id),
+     * high-water mark 아래 catchUpWindow 만큼도 다시 읽고 아직 없는 id 만 추가함
+     */
+    public synchronized int catchUp() {
+        State current = state;
+        long from = Math.max(0, current.highWaterMark() - properties.getCatchUpWindow());
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CATCH_UP);
+            statement.setFetchSize(properties.getFetchSize());
+            statement.setLong(1, from);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            long memberId = resultSet.getLong(1);
+            if (current.contains(memberId)) {
+                return;
+            }
+            long teamId = resultSet.getLong(4);
+            boolean noTeam = resultSet.wasNull();
+            current.add(new MemberTeamDto(
+                    memberId,
+                    resultSet.getString(2),
+                    resultSet.getInt(3),
+                    noTeam ? null : teamId,
+                    resultSet.getString(5)));
+            count[0]++;
+        });
+        return (int) count[0];
+    }
+
+    @Scheduled(fixedDelayString = "${member.index.write-interval:PT10M}",
+            initialDelayString = "${member.index.write-interval:PT10M}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        catchUp();
+        writeSnapshot();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    /*
+     * 현재 스냅샷 + overlay 를 새 스냅샷으로 쓰고 다시 매핑함
+     */
+    public synchronized void writeSnapshot() {
+        State current = state;
+        long start = System.currentTimeMillis();
+        try {
+            MemberSnapshot.write(properties.getSnapshot(), current.rows(), current.highWaterMark());
+            state = new State(MemberSnapshot.map(properties.getSnapshot()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Wrote member snapshot with {} rows in {}ms", state.snapshot.size(), System.currentTimeMillis() - start);
+    }
+
+    /*
+     * 스냅샷과 overlay 를 비움 (테스트용). 다음 catchUp() 이 DB 에서 다시 채움
+     */
+    synchronized void reset() {
+        state = new State(MemberSnapshot.empty());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        State current = state;
+        return current.snapshot.size() + current.overlay.size();
+    }
+
+    public long highWaterMark() {
+        return state.highWaterMark();
+    }
+
+    public Optional<MemberTeamDto> findById(long memberId) {
+        State current = state;
+        int row = current.snapshot.findRow(memberId);
+        if (row >= 0) {
+            return Optional.of(current.snapshot.row(row));
+        }
+        return Optional.ofNullable(current.overlay.get(memberId));
+    }
+
+    public List<MemberTeamDto> findByUsername(String username) {
+        State current = state;
+        List<MemberTeamDto> result = current.snapshot.findByUsername(username);
+        result.addAll(current.overlayByUsername.getOrDefault(username, Collections.emptyList()));
+        return result;
+    }
+
+    /*
+     * 매핑한 스냅샷과 그 이후 추가분. 새 스냅샷을 매핑하면 통째로 교체함
+     */
+    private static class State {
+        private final MemberSnapshot snapshot;
+        private final NavigableMap<Long, MemberTeamDto> overlay = new ConcurrentSkipListMap<>();
+        private final Map<String, List<MemberTeamDto>> overlayByUsername = new ConcurrentHashMap<>();
+
+        private State(MemberSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private long highWaterMark() {
+            return overlay.isEmpty() ? snapshot.highWaterMark() : Math.max(snapshot.highWaterMark(), overlay.lastKey());
+        }
+
+        private boolean contains(long memberId) {
+            return overlay.containsKey(memberId) || snapshot.findRow(memberId) >= 0;
+        }
+
+        private void add(MemberTeamDto member) {
+            overlay.put(member.getMemberId(), member);
+            if (member.getUsername() == null) {
+                return;
+            }
+            overlayByUsername.computeIfAbsent(member.getUsername(), key -> new CopyOnWriteArrayList<>()).add(member);
+        }
+
+        /*
+         * 스냅샷 row 는 필요할 때 읽어서 전체를 힙에 올리지 않음.
+         * 늦게 commit 된 작은 id 가 overlay 에 있을 수 있으므로 id 순서로 끼워 넣음
+         */
+        private List<MemberTeamDto> rows() {
+            List<MemberTeamDto> added = new ArrayList<>(overlay.values());
+            int snapshotRows = snapshot.size();
+            // overlay row 가 합친 목록에서 놓이는 위치 (증가 순)
+            int[] positions = new int[added.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = snapshot.lowerBound(added.get(i).getMemberId()) + i;
+            }
+            return new AbstractList<MemberTeamDto>() {
+                @Override
+                public MemberTeamDto get(int index) {
+                    int found = Arrays.binarySearch(positions, index);
+                    if (found >= 0) {
+                        return added.get(found);
+                    }
+                    // 앞에 끼워 넣은 overlay row 수만큼 당김
+                    return snapshot.row(index + found + 1);
+                }
+
+                @Override
+                public int size() {
+                    return snapshotRows + added.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.maeng.querydsl.index;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.index")
+public class MemberIndexProperties {
+
+    /**
+     * 프로세스 내 member/team 인덱스 사용.
+     */
+    private boolean enabled;
+
+    /**
+     * 스냅샷 파일 경로. 시작 시 이 파일을 매핑하고 이후 추가된 row 만 DB 에서 읽음.
+     */
+    private Path snapshot = Paths.get(System.getProperty("java.io.tmpdir"), "member-index.snapshot");
+
+    /**
+     * 스냅샷 쓰기 주기 (ISO-8601). 종료 시에도 씀.
+     */
+    private String writeInterval = "PT10M";
+
+    /**
+     * catch-up 때 high-water mark 아래로 다시 읽는 id 수.
+     * 가장 긴 쓰기 트랜잭션 동안 발급되는 id 수보다 커야 늦게 commit 된 row 를 놓치지 않음.
+     */
+    private long catchUpWindow = 1000;
+
+    /**
+     * catch-up 조회 fetch size.
+     */
+    private int fetchSize = 1000;
+}
@@ -0,0 +1,322 @@
+package com.maeng.querydsl.index;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+ * member/team 스냅샷 파일. 메모리 매핑해서 복사 없이 row 를 읽음.
+ *
+ * header (64 bytes)
+ *   int magic, int version, int rowCount, int dictionaryCount,
+ *   long highWaterMark (스냅샷에 포함된 최대 member id), long createdAt,
+ *   long rowsOffset, long usernameOrderOffset, long dictionaryOffsetsOffset, long dictionaryBytesOffset
+ * rows            rowCount * 28 bytes, member id 오름차순
+ *   long memberId, int age, int usernameRef, long teamId(-1 = 없음), int teamNameRef(-1 = 없음)
+ * usernameOrder   int[rowCount], usernameRef 순으로 정렬한 row 번호
+ * dictionary      int[dictionaryCount + 1] offsets + UTF-8 bytes, 문자열 오름차순 (ref = 순번)
+ *
+ * 하나의 MappedByteBuffer 로 읽으므로 파일 크기는 2GB 미만이어야 함.
+ */
+final class MemberSnapshot {
+
+    static final int MAGIC = 0x4D425253; // "MBRS"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+    private static final int ROW_BYTES = 28;
+    private static final int NONE = -1;
+
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int dictionaryCount;
+    private final long highWaterMark;
+    private final int rowsOffset;
+    private final int usernameOrderOffset;
+    private final int dictionaryOffsetsOffset;
+    private final int dictionaryBytesOffset;
+
+    private MemberSnapshot(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a member snapshot (version " + VERSION + ")");
+        }
+
+        this.buffer = buffer;
+        this.rowCount = buffer.getInt(8);
+        this.dictionaryCount = buffer.getInt(12);
+        this.highWaterMark = buffer.getLong(16);
+
+        // 섹션 위치는 개수로부터 정해지므로 header 의 offset 이 계산값과 같고 파일 안에 있어야 함
+        if (rowCount < 0 || dictionaryCount < 0) {
+            throw new IllegalArgumentException("Corrupt member snapshot: negative count");
+        }
+        long usernameOrderOffset = HEADER_BYTES + (long) rowCount * ROW_BYTES;
+        long dictionaryOffsetsOffset = usernameOrderOffset + (long) rowCount * 4;
+        long dictionaryBytesOffset = dictionaryOffsetsOffset + (long) (dictionaryCount + 1) * 4;
+        if (buffer.getLong(32) != HEADER_BYTES
+                || buffer.getLong(40) != usernameOrderOffset
+                || buffer.getLong(48) != dictionaryOffsetsOffset
+                || buffer.getLong(56) != dictionaryBytesOffset
+                || dictionaryBytesOffset > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt member snapshot: section offsets out of range");
+        }
+        this.rowsOffset = HEADER_BYTES;
+        this.usernameOrderOffset = (int) usernameOrderOffset;
+        this.dictionaryOffsetsOffset = (int) dictionaryOffsetsOffset;
+        this.dictionaryBytesOffset = (int) dictionaryBytesOffset;
+
+        // 문자열 offset 은 0 부터 증가하고 마지막 값이 파일 끝을 넘지 않아야 함
+        int previous = 0;
+        for (int ref = 0; ref <= dictionaryCount; ref++) {
+            int offset = buffer.getInt(this.dictionaryOffsetsOffset + ref * 4);
+            if (offset < previous || (ref == 0 && offset != 0)) {
+                throw new IllegalArgumentException("Corrupt member snapshot: dictionary offsets out of order");
+            }
+            previous = offset;
+        }
+        if (this.dictionaryBytesOffset + (long) previous > buffer.capacity()) {
+            throw new IllegalArgumentException("Corrupt member snapshot: dictionary exceeds file");
+        }
+    }
+
+    static MemberSnapshot empty() {
+        // header + 빈 dictionary 의 offsets[0] (= 0)
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4);
+        buffer.put(encodeHeader(0, 0, 0, HEADER_BYTES, HEADER_BYTES, HEADER_BYTES + 4).array());
+        return new MemberSnapshot(buffer);
+    }
+
+    static MemberSnapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // 채널을 닫아도 매핑은 유지됨
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MemberSnapshot(buffer);
+        }
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    long highWaterMark() {
+        return highWaterMark;
+    }
+
+    MemberTeamDto row(int row) {
+        int offset = rowsOffset + row * ROW_BYTES;
+        long teamId = buffer.getLong(offset + 16);
+
+        return new MemberTeamDto(
+                buffer.getLong(offset),
+                string(buffer.getInt(offset + 12)),
+                buffer.getInt(offset + 8),
+                teamId == NONE ? null : teamId,
+                string(buffer.getInt(offset + 24))
+        );
+    }
+
+    /*
+     * member id 로 row 번호 검색. 없으면 -1
+     */
+    int findRow(long memberId) {
+        int row = lowerBound(memberId);
+        return row < rowCount && buffer.getLong(rowsOffset + row * ROW_BYTES) == memberId ? row : NONE;
+    }
+
+    /*
+     * member id 가 memberId 이상인 첫 row 번호 (없으면 rowCount)
+     */
+    int lowerBound(long memberId) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(rowsOffset + mid * ROW_BYTES) < memberId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    List<MemberTeamDto> findByUsername(String username) {
+        int ref = dictionaryRef(username);
+        List<MemberTeamDto> result = new ArrayList<>();
+        if (ref == NONE) {
+            return result;
+        }
+
+        // usernameOrder 에서 ref 가 처음 나오는 위치를 찾고 같은 ref 동안 읽음
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (usernameRefAt(mid) < ref) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < rowCount && usernameRefAt(i) == ref; i++) {
+            result.add(row(buffer.getInt(usernameOrderOffset + i * 4)));
+        }
+        return result;
+    }
+
+    private int usernameRefAt(int order) {
+        int row = buffer.getInt(usernameOrderOffset + order * 4);
+        return buffer.getInt(rowsOffset + row * ROW_BYTES + 12);
+    }
+
+    private int dictionaryRef(String value) {
+        int low = 0;
+        int high = dictionaryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = string(mid).compareTo(value);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    private String string(int ref) {
+        if (ref == NONE) {
+            return null;
+        }
+
+        int start = buffer.getInt(dictionaryOffsetsOffset + ref * 4);
+        int end = buffer.getInt(dictionaryOffsetsOffset + (ref + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(dictionaryBytesOffset + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * rows 는 member id 오름차순이어야 함. 임시 파일에 쓴 뒤 교체하므로 읽는 쪽은 항상 완성된 파일만 봄
+     */
+    static void write(Path path, List<MemberTeamDto> rows, long highWaterMark) throws IOException {
+        TreeSet<String> distinct = new TreeSet<>();
+        for (MemberTeamDto row : rows) {
+            addIfPresent(distinct, row.getUsername());
+            addIfPresent(distinct, row.getTeamName());
+        }
+
+        Map<String, Integer> refs = new HashMap<>(distinct.size() * 2);
+        byte[][] dictionary = new byte[distinct.size()][];
+        int dictionaryBytes = 0;
+        for (String value : distinct) {
+            int ref = refs.size();
+            refs.put(value, ref);
+            dictionary[ref] = value.getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += dictionary[ref].length;
+        }
+
+        int rowCount = rows.size();
+        long rowsOffset = HEADER_BYTES;
+        long usernameOrderOffset = rowsOffset + (long) rowCount * ROW_BYTES;
+        long dictionaryOffsetsOffset = usernameOrderOffset + (long) rowCount * 4;
+        long dictionaryBytesOffset = dictionaryOffsetsOffset + (long) (dictionary.length + 1) * 4;
+        if (dictionaryBytesOffset + dictionaryBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot exceeds 2GB");
+        }
+
+        // (usernameRef, row) 를 long 하나로 묶어 정렬
+        long[] usernameOrder = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            usernameOrder[i] = ((long) ref(refs, rows.get(i).getUsername()) << 32) | i;
+        }
+        Arrays.sort(usernameOrder);
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            ByteBuffer header = encodeHeader(rowCount, dictionary.length, highWaterMark,
+                    usernameOrderOffset, dictionaryOffsetsOffset, dictionaryBytesOffset);
+            out.write(header.array());
+
+            for (MemberTeamDto row : rows) {
+                out.writeLong(row.getMemberId());
+                out.writeInt(row.getAge());
+                out.writeInt(ref(refs, row.getUsername()));
+                out.writeLong(row.getTeamId() == null ? NONE : row.getTeamId());
+                out.writeInt(ref(refs, row.getTeamName()));
+            }
+            for (long entry : usernameOrder) {
+                out.writeInt((int) entry);
+            }
+
+            int offset = 0;
+            for (byte[] value : dictionary) {
+                out.writeInt(offset);
+                offset += value.length;
+            }
+            out.writeInt(offset);
+            for (byte[] value : dictionary) {
+                out.write(value);
+            }
+            out.flush();
+
+            // rename 전에 내용을 디스크에 내려야 crash 뒤에 새 이름으로 잘린 파일이 보이지 않음
+            channel.force(true);
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ByteBuffer encodeHeader(int rowCount, int dictionaryCount, long highWaterMark,
+                                           long usernameOrderOffset, long dictionaryOffsetsOffset, long dictionaryBytesOffset) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(rowCount)
+                .putInt(dictionaryCount)
+                .putLong(highWaterMark)
+                .putLong(System.currentTimeMillis())
+                .putLong(HEADER_BYTES)
+                .putLong(usernameOrderOffset)
+                .putLong(dictionaryOffsetsOffset)
+                .putLong(dictionaryBytesOffset);
+        return header;
+    }
+
+    private static void addIfPresent(TreeSet<String> distinct, String value) {
+        if (value != null) {
+            distinct.add(value);
+        }
+    }
+
+    private static int ref(Map<String, Integer> refs, String value) {
+        return value == null ? NONE : refs.get(value);
+    }
+}
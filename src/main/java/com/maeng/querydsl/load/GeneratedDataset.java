@@ -0,0 +1,31 @@
+package com.maeng.querydsl.load;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+ * 생성된 데이터 범위. 부하 테스트에서 존재하는 id / username / 팀을 고르는 데 사용.
+ */
+@Getter
+public class GeneratedDataset {
+
+    private final List<Long> teamIds;
+    private final List<String> teamNames;
+    private final double teamSkew;
+    private final long minMemberId;
+    private final long maxMemberId;
+    private final String usernamePrefix;
+    private final int memberCount;
+
+    public GeneratedDataset(List<Long> teamIds, List<String> teamNames, double teamSkew,
+                            long minMemberId, long maxMemberId, String usernamePrefix, int memberCount) {
+        this.teamIds = teamIds;
+        this.teamNames = teamNames;
+        this.teamSkew = teamSkew;
+        this.minMemberId = minMemberId;
+        this.maxMemberId = maxMemberId;
+        this.usernamePrefix = usernamePrefix;
+        this.memberCount = memberCount;
+    }
+}
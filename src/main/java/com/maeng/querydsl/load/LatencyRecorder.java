@@ -0,0 +1,54 @@
+package com.maeng.querydsl.load;
+
+import java.util.Arrays;
+
+/*
+ * 스레드 하나가 쓰는 latency 기록 (thread-safe 아님). 측정 종료 후 merge 해서 percentile 계산.
+ */
+public class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private long errors;
+    private boolean sorted;
+
+    public void record(long elapsedNanos) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = elapsedNanos;
+        sorted = false;
+    }
+
+    public void recordError() {
+        errors++;
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.nanos[i]);
+        }
+        errors += other.errors;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(nanos, 0, count);
+            sorted = true;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return nanos[Math.max(0, Math.min(count - 1, index))] / 1_000_000.0;
+    }
+}
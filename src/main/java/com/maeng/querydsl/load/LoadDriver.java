@@ -0,0 +1,185 @@
+package com.maeng.querydsl.load;
+
+import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.repository.MemberJpaRepository;
+import com.maeng.querydsl.repository.MemberQueryDslRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 여러 스레드로 searchByWhere / findById / findByUsername / 벌크 update 를 지정 비율로 섞어 실행함.
+ * warmup 이후 구간만 latency, 처리량, 커넥션 풀 대기 시간(load 프로필의 PoolWaitRecorder, 없으면 hikaricp.connections.acquire 평균)을 집계함.
+ */
+@Slf4j
+@Component
+public class LoadDriver {
+
+    private static final String POOL_ACQUIRE_TIMER = "hikaricp.connections.acquire";
+    private static final long WORKER_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final MemberQueryDslRepository memberQueryDslRepository;
+    private final MemberJpaRepository memberJpaRepository;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<PoolWaitRecorder> poolWaitRecorder;
+
+    public LoadDriver(MemberQueryDslRepository memberQueryDslRepository,
+                      MemberJpaRepository memberJpaRepository,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      ObjectProvider<PoolWaitRecorder> poolWaitRecorder) {
+        this.memberQueryDslRepository = memberQueryDslRepository;
+        this.memberJpaRepository = memberJpaRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.poolWaitRecorder = poolWaitRecorder;
+    }
+
+    public LoadReport run(GeneratedDataset dataset, LoadTestProperties.Workload workload) throws InterruptedException {
+        LoadOperation[] operations = weightedOperations(workload.getMix());
+        ZipfSampler teamSampler = new ZipfSampler(dataset.getTeamIds().size(), dataset.getTeamSkew());
+
+        long measureFrom = System.nanoTime() + workload.getWarmup().toNanos();
+        long endAt = measureFrom + workload.getDuration().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workload.getThreads());
+        Map<LoadOperation, LatencyRecorder> merged = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : workload.getMix().keySet()) {
+            merged.put(operation, new LatencyRecorder());
+        }
+
+        double poolWaitMean = -1;
+        double poolWaitMax = -1;
+        try {
+            List<Future<Map<LoadOperation, LatencyRecorder>>> futures = new ArrayList<>();
+            for (int i = 0; i < workload.getThreads(); i++) {
+                futures.add(executor.submit(() -> runWorker(dataset, teamSampler, operations, measureFrom, endAt)));
+            }
+
+            // warmup 이 끝날 때까지 기다렸다가 풀 대기 시간 측정 시작
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, measureFrom - System.nanoTime()));
+            PoolWaitRecorder poolWait = poolWaitRecorder.getIfAvailable();
+            if (poolWait != null) {
+                poolWait.reset();
+            }
+            Timer acquireTimer = meterRegistry.find(POOL_ACQUIRE_TIMER).timer();
+            long acquireCountBefore = acquireTimer == null ? 0 : acquireTimer.count();
+            double acquireNanosBefore = acquireTimer == null ? 0 : acquireTimer.totalTime(TimeUnit.NANOSECONDS);
+
+            for (Future<Map<LoadOperation, LatencyRecorder>> future : futures) {
+                future.get().forEach((operation, recorder) -> merged.get(operation).merge(recorder));
+            }
+
+            if (poolWait != null) {
+                poolWaitMean = poolWait.meanMillis();
+                poolWaitMax = poolWait.maxMillis();
+            } else if (acquireTimer != null) {
+                // Hikari timer 의 max 는 측정 구간과 무관한 감쇠 값이라 평균만 구간 차이로 계산함
+                long acquires = acquireTimer.count() - acquireCountBefore;
+                double acquireNanos = acquireTimer.totalTime(TimeUnit.NANOSECONDS) - acquireNanosBefore;
+                poolWaitMean = acquires == 0 ? 0 : acquireNanos / acquires / 1_000_000.0;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed", e.getCause());
+        } finally {
+            // 인터럽트된 worker 는 진행 중인 쿼리가 끝나면 루프를 빠져나옴
+            executor.shutdownNow();
+            if (!executor.awaitTermination(WORKER_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Load workers did not stop within {}s", WORKER_SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        }
+
+        return new LoadReport(workload.getDuration(), workload.getThreads(), merged, poolWaitMean, poolWaitMax);
+    }
+
+    private Map<LoadOperation, LatencyRecorder> runWorker(GeneratedDataset dataset, ZipfSampler teamSampler,
+                                                          LoadOperation[] operations, long measureFrom, long endAt) {
+        Random random = ThreadLocalRandom.current();
+        Map<LoadOperation, LatencyRecorder> recorders = new EnumMap<>(LoadOperation.class);
+        for (LoadOperation operation : operations) {
+            recorders.putIfAbsent(operation, new LatencyRecorder());
+        }
+
+        long now;
+        // shutdownNow() 로 인터럽트되면 쿼리가 계속 취소되므로 바로 멈춤
+        while (!Thread.currentThread().isInterrupted() && (now = System.nanoTime()) < endAt) {
+            LoadOperation operation = operations[random.nextInt(operations.length)];
+            LatencyRecorder recorder = recorders.get(operation);
+            try {
+                execute(operation, dataset, teamSampler, random);
+                if (now >= measureFrom) {
+                    recorder.record(System.nanoTime() - now);
+                }
+            } catch (RuntimeException e) {
+                log.debug("{} failed", operation, e);
+                if (now >= measureFrom) {
+                    recorder.recordError();
+                }
+            }
+        }
+        return recorders;
+    }
+
+    private void execute(LoadOperation operation, GeneratedDataset dataset, ZipfSampler teamSampler, Random random) {
+        switch (operation) {
+            case SEARCH_BY_WHERE:
+                // 인기 팀일수록 자주 검색됨. 나이는 좁은 구간으로 결과 크기를 제한
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setTeamName(dataset.getTeamNames().get(teamSampler.next(random)));
+                int ageGoe = 14 + random.nextInt(60);
+                condition.setAgeGoe(ageGoe);
+                condition.setAgeLoe(ageGoe + 2);
+                readTransaction.executeWithoutResult(status -> memberQueryDslRepository.searchByWhere(condition));
+                break;
+            case FIND_BY_ID:
+                long id = dataset.getMinMemberId() + (long) (random.nextDouble() * (dataset.getMaxMemberId() - dataset.getMinMemberId() + 1));
+                readTransaction.executeWithoutResult(status -> memberJpaRepository.findById(id));
+                break;
+            case FIND_BY_USERNAME:
+                String username = dataset.getUsernamePrefix() + random.nextInt(dataset.getMemberCount());
+                readTransaction.executeWithoutResult(status -> memberJpaRepository.findByUsername(username));
+                break;
+            case BULK_UPDATE:
+                // 팀은 균등하게 골라서 거대 팀 업데이트가 워크로드를 지배하지 않도록 함
+                Long teamId = dataset.getTeamIds().get(random.nextInt(dataset.getTeamIds().size()));
+                writeTransaction.executeWithoutResult(status -> memberQueryDslRepository.bulkAddAge(teamId, 1));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private LoadOperation[] weightedOperations(Map<LoadOperation, Integer> mix) {
+        List<LoadOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Workload mix must contain at least one positive weight");
+        }
+        return operations.toArray(new LoadOperation[0]);
+    }
+}
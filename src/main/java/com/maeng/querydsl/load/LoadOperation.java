@@ -0,0 +1,8 @@
+package com.maeng.querydsl.load;
+
+public enum LoadOperation {
+    SEARCH_BY_WHERE,
+    FIND_BY_ID,
+    FIND_BY_USERNAME,
+    BULK_UPDATE
+}
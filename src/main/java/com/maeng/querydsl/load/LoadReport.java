@@ -0,0 +1,54 @@
+package com.maeng.querydsl.load;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Getter
+public class LoadReport {
+
+    private final Duration duration;
+    private final int threads;
+    private final Map<LoadOperation, LatencyRecorder> latencies;
+    private final double poolWaitMeanMillis;
+    private final double poolWaitMaxMillis;
+
+    public LoadReport(Duration duration, int threads, Map<LoadOperation, LatencyRecorder> latencies,
+                      double poolWaitMeanMillis, double poolWaitMaxMillis) {
+        this.duration = duration;
+        this.threads = threads;
+        this.latencies = latencies;
+        this.poolWaitMeanMillis = poolWaitMeanMillis;
+        this.poolWaitMaxMillis = poolWaitMaxMillis;
+    }
+
+    public double throughput(LoadOperation operation) {
+        return latencies.get(operation).getCount() / (duration.toMillis() / 1000.0);
+    }
+
+    public double totalThroughput() {
+        return latencies.values().stream().mapToInt(LatencyRecorder::getCount).sum() / (duration.toMillis() / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("threads=%d, duration=%ds, throughput=%.1f ops/s%n",
+                threads, duration.getSeconds(), totalThroughput()));
+        sb.append(String.format("%-18s %10s %8s %10s %9s %9s %9s%n",
+                "operation", "ops", "errors", "ops/s", "p50(ms)", "p99(ms)", "p999(ms)"));
+
+        latencies.forEach((operation, recorder) -> sb.append(String.format("%-18s %10d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                operation, recorder.getCount(), recorder.getErrors(), throughput(operation),
+                recorder.percentileMillis(50), recorder.percentileMillis(99), recorder.percentileMillis(99.9))));
+
+        if (poolWaitMeanMillis < 0) {
+            sb.append("pool wait: n/a (hikaricp.connections.acquire not registered)");
+        } else {
+            sb.append(String.format("pool wait: mean=%.3fms, max=%s", poolWaitMeanMillis,
+                    poolWaitMaxMillis < 0 ? "n/a" : String.format("%.3fms", poolWaitMaxMillis)));
+        }
+        return sb.toString();
+    }
+}
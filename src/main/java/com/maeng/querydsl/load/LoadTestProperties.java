@@ -0,0 +1,62 @@
+package com.maeng.querydsl.load;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "load")
+public class LoadTestProperties {
+
+    /**
+     * 부팅 후 데이터 생성 + 부하 테스트를 바로 실행. (load 프로필)
+     */
+    private boolean runOnStartup;
+
+    private Dataset dataset = new Dataset();
+
+    private Workload workload = new Workload();
+
+    @Getter
+    @Setter
+    public static class Dataset {
+        private int members = 1_000_000;
+        private int teams = 2_000;
+        /**
+         * 팀 크기 Zipf 지수. 클수록 소수 팀에 회원이 몰림.
+         */
+        private double teamSkew = 1.1;
+        private double ageMean = 38;
+        private double ageStdDev = 13;
+        private int minAge = 14;
+        private int maxAge = 90;
+        private int batchSize = 5_000;
+        private long seed = 42;
+    }
+
+    @Getter
+    @Setter
+    public static class Workload {
+        private int threads = 16;
+        private Duration warmup = Duration.ofSeconds(5);
+        private Duration duration = Duration.ofSeconds(30);
+        /**
+         * 연산별 비율 (가중치)
+         */
+        private Map<LoadOperation, Integer> mix = defaultMix();
+
+        private static Map<LoadOperation, Integer> defaultMix() {
+            Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+            mix.put(LoadOperation.SEARCH_BY_WHERE, 60);
+            mix.put(LoadOperation.FIND_BY_ID, 25);
+            mix.put(LoadOperation.FIND_BY_USERNAME, 10);
+            mix.put(LoadOperation.BULK_UPDATE, 5);
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.maeng.querydsl.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/*
+ * ./gradlew bootRun --args='--spring.profiles.active=load'
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "load", name = "run-on-startup", havingValue = "true")
+public class LoadTestRunner implements ApplicationRunner {
+
+    private final MemberDataGenerator generator;
+    private final LoadDriver driver;
+    private final LoadTestProperties properties;
+
+    public LoadTestRunner(MemberDataGenerator generator, LoadDriver driver, LoadTestProperties properties) {
+        this.generator = generator;
+        this.driver = driver;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        GeneratedDataset dataset = generator.generate(properties.getDataset());
+        LoadReport report = driver.run(dataset, properties.getWorkload());
+        log.info("Load test result\n{}", report);
+    }
+}
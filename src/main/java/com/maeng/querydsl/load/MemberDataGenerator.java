@@ -0,0 +1,97 @@
+package com.maeng.querydsl.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/*
+ * member / team 대량 데이터 생성.
+ * 팀 크기는 Zipf 분포, 나이는 정규분포(min ~ max 로 자름). JPA 를 거치지 않고 JDBC batch insert 로 넣음.
+ */
+@Slf4j
+@Component
+public class MemberDataGenerator {
+
+    private static final String INSERT_TEAM = "insert into team (name) values (?)";
+    private static final String INSERT_MEMBER = "insert into member (username, age, team_id) values (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public GeneratedDataset generate(LoadTestProperties.Dataset spec) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(spec.getSeed());
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        long teamIdBefore = maxId("team");
+        List<String> teamNames = new ArrayList<>(spec.getTeams());
+        for (int i = 0; i < spec.getTeams(); i++) {
+            teamNames.add("team-" + runId + "-" + i);
+        }
+        insertInBatches(INSERT_TEAM, teamNames, spec.getBatchSize(), name -> new Object[]{name});
+
+        // name 의 rank 순서와 id 순서가 같음 (rank 0 이 가장 큰 팀)
+        List<Long> teamIds = jdbcTemplate.queryForList("select id from team where id > ? order by id", Long.class, teamIdBefore);
+
+        long memberIdBefore = maxId("member");
+        String usernamePrefix = "member-" + runId + "-";
+        ZipfSampler teamSampler = new ZipfSampler(teamIds.size(), spec.getTeamSkew());
+
+        List<Object[]> batch = new ArrayList<>(spec.getBatchSize());
+        for (int i = 0; i < spec.getMembers(); i++) {
+            batch.add(new Object[]{usernamePrefix + i, age(random, spec), teamIds.get(teamSampler.next(random))});
+            if (batch.size() == spec.getBatchSize()) {
+                insert(INSERT_MEMBER, batch);
+            }
+        }
+        insert(INSERT_MEMBER, batch);
+
+        long maxMemberId = maxId("member");
+        log.info("Generated {} members in {} teams in {}ms", spec.getMembers(), spec.getTeams(), System.currentTimeMillis() - start);
+
+        return new GeneratedDataset(teamIds, teamNames, spec.getTeamSkew(),
+                memberIdBefore + 1, maxMemberId, usernamePrefix, spec.getMembers());
+    }
+
+    private int age(Random random, LoadTestProperties.Dataset spec) {
+        long age = Math.round(spec.getAgeMean() + spec.getAgeStdDev() * random.nextGaussian());
+        return (int) Math.max(spec.getMinAge(), Math.min(spec.getMaxAge(), age));
+    }
+
+    private <T> void insertInBatches(String sql, List<T> rows, int batchSize, Function<T, Object[]> mapper) {
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (T row : rows) {
+            batch.add(mapper.apply(row));
+            if (batch.size() == batchSize) {
+                insert(sql, batch);
+            }
+        }
+        insert(sql, batch);
+    }
+
+    private void insert(String sql, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        batch.clear();
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+}
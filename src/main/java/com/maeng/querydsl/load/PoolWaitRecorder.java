@@ -0,0 +1,69 @@
+package com.maeng.querydsl.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * DataSource.getConnection() 대기 시간을 직접 잼 (= 커넥션 풀 대기).
+ * hikaricp.connections.acquire 의 max 는 시간 창으로 감쇠하는 값이라 측정 구간만의 max 를 알 수 없어서,
+ * LoadDriver 가 warmup 이 끝날 때 reset() 하고 측정 구간의 평균/최대를 읽음.
+ */
+@Component
+@Profile("load")
+public class PoolWaitRecorder implements BeanPostProcessor {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+
+        DataSource target = (DataSource) bean;
+        return Proxy.newProxyInstance(PoolWaitRecorder.class.getClassLoader(), new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+            boolean acquire = method.getName().equals("getConnection");
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (acquire) {
+                    record(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    public double meanMillis() {
+        long acquires = count.sum();
+        return acquires == 0 ? 0 : totalNanos.sum() / (double) acquires / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double maxMillis() {
+        return maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+}
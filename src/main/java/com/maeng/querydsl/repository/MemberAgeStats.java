@@ -0,0 +1,25 @@
+package com.maeng.querydsl.repository;
+
+import lombok.Value;
+
+/*
+ * 구간별로 구한 뒤 combine 으로 합칠 수 있는 age 집계
+ */
+@Value
+public class MemberAgeStats {
+
+    public static final MemberAgeStats EMPTY = new MemberAgeStats(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+    long count;
+    long sum;
+    int min;
+    int max;
+
+    public MemberAgeStats combine(MemberAgeStats other) {
+        return new MemberAgeStats(count + other.count, sum + other.sum, Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    public double average() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
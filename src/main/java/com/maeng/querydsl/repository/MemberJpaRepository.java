@@ -1,24 +1,64 @@
 package com.maeng.querydsl.repository;
 
 import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.Team;
+import com.maeng.querydsl.repository.support.QueryGuard;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 public class MemberJpaRepository {
 
     private final EntityManager em;
+    private final QueryGuard queryGuard;
+    private final MemberReadModelRepository memberReadModelRepository;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, QueryGuard queryGuard, MemberReadModelRepository memberReadModelRepository) {
         this.em = em;
+        this.queryGuard = queryGuard;
+        this.memberReadModelRepository = memberReadModelRepository;
     }
 
     public void save(Member member) {
         em.persist(member);
+        memberReadModelRepository.insert(member);
+    }
+
+    /*
+     * 팀을 조회하지 않고 team_id 만으로 회원을 추가함. 팀 크기와 상관없이 insert 한 번.
+     */
+    public Member saveInTeam(String username, int age, Long teamId) {
+        Member member = new Member(username, age, em.getReference(Team.class, teamId));
+        save(member);
+        return member;
+    }
+
+    public Member merge(Member member) {
+        Member merged = em.merge(member);
+        memberReadModelRepository.upsert(merged);
+        return merged;
+    }
+
+    /*
+     * detached 회원 여러 명을 merge. 대상 회원과 read model 을 id in (...) 로 한 번에 읽어 두어서
+     * merge / upsert 가 회원마다 select 하지 않음. update 는 flush 때 JDBC batch 로 나감
+     */
+    public void mergeAll(List<Member> members) {
+        if (members.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = members.stream().map(Member::getId).collect(Collectors.toList());
+        queryGuard.fetch("MemberJpaRepository.mergeAll",
+                em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids));
+        memberReadModelRepository.preload(ids);
+        members.forEach(this::merge);
     }
 
     public Optional<Member> findById(Long id) {
@@ -27,13 +67,13 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class)
-                .getResultList();
+        return queryGuard.fetch("MemberJpaRepository.findAll",
+                em.createQuery("select m from Member m", Member.class));
     }
 
     public List<Member> findByUsername(String username) {
-        return em.createQuery("select m from Member m where m.username = :username" ,Member.class)
-                .setParameter("username", username)
-                .getResultList();
+        return queryGuard.fetch("MemberJpaRepository.findByUsername",
+                em.createQuery("select m from Member m where m.username = :username" ,Member.class)
+                .setParameter("username", username));
     }
 }
@@ -0,0 +1,64 @@
+package com.maeng.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static com.maeng.querydsl.entity.QMember.member;
+
+/*
+ * Sort -> OrderSpecifier 변환.
+ * 인덱스가 있는 컬럼만 허용하고(filesort 방지), 마지막에 member.id 를 tie-breaker 로 붙여 페이지 경계를 안정적으로 유지함.
+ * tie-breaker 는 마지막 정렬과 같은 방향으로 붙여 (age, id) / (username, id) 인덱스를 한 방향으로 읽을 수 있게 함.
+ */
+final class MemberOrderSpecifiers {
+
+    private static final Map<String, ComparableExpressionBase<?>> INDEXED_PROPERTIES = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age
+    );
+
+    private MemberOrderSpecifiers() {
+    }
+
+    static OrderSpecifier<?>[] of(Sort sort) {
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        boolean orderedById = false;
+        boolean lastAscending = true;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = INDEXED_PROPERTIES.get(order.getProperty());
+            if (path == null || order.isIgnoreCase()) {
+                throw new IllegalArgumentException("Sort '" + order + "' is not backed by an index. "
+                        + "Sortable properties: " + new TreeSet<>(INDEXED_PROPERTIES.keySet()));
+            }
+
+            specifiers.add(withNullHandling(order.isAscending() ? path.asc() : path.desc(), order.getNullHandling()));
+            orderedById |= path == member.id;
+            lastAscending = order.isAscending();
+        }
+
+        if (!orderedById) {
+            specifiers.add(lastAscending ? member.id.asc() : member.id.desc());
+        }
+
+        return specifiers.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private static OrderSpecifier<?> withNullHandling(OrderSpecifier<?> specifier, Sort.NullHandling nullHandling) {
+        switch (nullHandling) {
+            case NULLS_FIRST:
+                return specifier.nullsFirst();
+            case NULLS_LAST:
+                return specifier.nullsLast();
+            default:
+                return specifier;
+        }
+    }
+}
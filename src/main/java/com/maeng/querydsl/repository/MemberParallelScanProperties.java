@@ -0,0 +1,28 @@
+package com.maeng.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.parallel-scan")
+public class MemberParallelScanProperties {
+
+    /**
+     * 동시에 실행하는 구간 수. 구간마다 커넥션을 하나씩 쓰므로 커넥션 풀 크기보다 작게 둠.
+     */
+    private int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+
+    /**
+     * 스레드당 id 구간 수. id 분포가 고르지 않을 때 느린 구간 하나가 전체를 붙잡지 않도록 잘게 나눔.
+     */
+    private int partitionsPerThread = 4;
+
+    private int fetchSize = 1_000;
+
+    /**
+     * export 시 구간별로 미리 읽어 둘 수 있는 최대 row 수.
+     */
+    private int bufferSize = 1_000;
+}
@@ -0,0 +1,235 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import lombok.Value;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/*
+ * member 전체 스캔을 id 구간으로 나눠 병렬 실행.
+ * 구간마다 StatelessSession 을 열어 별도 커넥션/트랜잭션으로 읽으므로 호출한 쪽 트랜잭션과 무관하고,
+ * 구간 사이에 같은 시점의 스냅샷을 보장하지 않음.
+ */
+@Repository
+public class MemberParallelScanRepository {
+
+    private static final Object END = new Object();
+
+    private final SessionFactory sessionFactory;
+    private final MemberParallelScanProperties properties;
+    private final ExecutorService executor;
+
+    public MemberParallelScanRepository(EntityManagerFactory emf, MemberParallelScanProperties properties) {
+        if (properties.getParallelism() < 1 || properties.getPartitionsPerThread() < 1 || properties.getBufferSize() < 1) {
+            throw new IllegalArgumentException("member.parallel-scan values must be positive");
+        }
+
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.properties = properties;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getParallelism(), r -> {
+            Thread thread = new Thread(r, "member-parallel-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * 구간별 부분 집계를 병렬로 구하고 구간 순서대로 combine
+     */
+    public <R> R aggregate(BiFunction<StatelessSession, IdRange, R> partial, R identity, BinaryOperator<R> combiner) {
+        List<Future<R>> futures = new ArrayList<>();
+        for (IdRange range : partitions()) {
+            futures.add(executor.submit(() -> inSession(session -> partial.apply(session, range))));
+        }
+
+        try {
+            R result = identity;
+            for (Future<R> future : futures) {
+                result = combiner.apply(result, await(future));
+            }
+            return result;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public MemberAgeStats ageStats() {
+        return aggregate((session, range) -> {
+            Object[] row = session.createQuery(
+                    "select count(m), coalesce(sum(m.age), 0), min(m.age), max(m.age) from Member m"
+                            + " where m.id between :from and :to", Object[].class)
+                    .setParameter("from", range.getFrom())
+                    .setParameter("to", range.getTo())
+                    .getSingleResult();
+            long count = ((Number) row[0]).longValue();
+            return count == 0 ? MemberAgeStats.EMPTY : new MemberAgeStats(
+                    count, ((Number) row[1]).longValue(), ((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+        }, MemberAgeStats.EMPTY, MemberAgeStats::combine);
+    }
+
+    /*
+     * 전체 member 를 id 순서대로 consumer 에 넘김.
+     * 구간은 병렬로 읽고 구간별 버퍼(buffer-size)에 쌓아 두며, consumer 는 호출한 스레드에서 구간 순서대로 소비함.
+     * 앞 구간을 소비하는 동안 뒤 구간은 버퍼가 차면 멈추므로 메모리는 구간 수 * buffer-size 로 제한됨.
+     */
+    public long export(Consumer<MemberTeamDto> consumer) {
+        List<BlockingQueue<Object>> buffers = new ArrayList<>();
+        List<Future<Void>> futures = new ArrayList<>();
+        for (IdRange range : partitions()) {
+            BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+            buffers.add(buffer);
+            futures.add(executor.submit(() -> {
+                try {
+                    runInSession(session -> scan(session, range, row -> put(buffer, row)));
+                } finally {
+                    put(buffer, END);
+                }
+                return null;
+            }));
+        }
+
+        try {
+            long count = 0;
+            for (int i = 0; i < buffers.size(); i++) {
+                BlockingQueue<Object> buffer = buffers.get(i);
+                for (Object row = take(buffer); row != END; row = take(buffer)) {
+                    consumer.accept((MemberTeamDto) row);
+                    count++;
+                }
+                // 구간 실패는 END 뒤에 드러남
+                await(futures.get(i));
+            }
+            return count;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /*
+     * min(id) ~ max(id) 를 parallelism * partitions-per-thread 개의 구간으로 균등 분할
+     */
+    public List<IdRange> partitions() {
+        Object[] bounds = inSession(session -> session
+                .createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                .getSingleResult());
+
+        List<IdRange> ranges = new ArrayList<>();
+        if (bounds[0] == null) {
+            return ranges;
+        }
+
+        long min = ((Number) bounds[0]).longValue();
+        long max = ((Number) bounds[1]).longValue();
+        long partitions = (long) properties.getParallelism() * properties.getPartitionsPerThread();
+        long width = Math.max(1, (max - min + partitions) / partitions);
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new IdRange(from, Math.min(max, from + width - 1)));
+        }
+        return ranges;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void scan(StatelessSession session, IdRange range, Consumer<MemberTeamDto> consumer) {
+        ScrollableResults results = session
+                .createQuery("select new com.maeng.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)"
+                        + " from Member m left join m.team t"
+                        + " where m.id between :from and :to order by m.id", MemberTeamDto.class)
+                .setParameter("from", range.getFrom())
+                .setParameter("to", range.getTo())
+                .setFetchSize(properties.getFetchSize())
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                consumer.accept((MemberTeamDto) results.get(0));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    private <R> R inSession(Function<StatelessSession, R> work) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            return work.apply(session);
+        } finally {
+            session.close();
+        }
+    }
+
+    private void runInSession(Consumer<StatelessSession> work) {
+        inSession(session -> {
+            work.accept(session);
+            return null;
+        });
+    }
+
+    private static void put(BlockingQueue<Object> buffer, Object row) {
+        try {
+            buffer.put(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parallel scan cancelled");
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> buffer) {
+        try {
+            return buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parallel scan interrupted");
+        }
+    }
+
+    private static <R> R await(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Parallel scan interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /*
+     * 양 끝을 포함하는 member id 구간
+     */
+    @Value
+    public static class IdRange {
+        long from;
+        long to;
+    }
+}
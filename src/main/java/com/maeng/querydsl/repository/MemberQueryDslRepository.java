@@ -1,19 +1,38 @@
 package com.maeng.querydsl.repository;
 
 import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.dto.MemberTeamField;
 import com.maeng.querydsl.dto.MemberTeamDto;
 import com.maeng.querydsl.dto.QMemberTeamDto;
 import com.maeng.querydsl.entity.Member;
 import com.maeng.querydsl.entity.QMember;
+import com.maeng.querydsl.repository.support.PredicateOptimizer;
+import com.maeng.querydsl.repository.support.QueryGuard;
+import com.maeng.querydsl.repository.support.SingleFlight;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,32 +44,57 @@ public class MemberQueryDslRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final QueryGuard queryGuard;
+    private final MemberReadModelRepository memberReadModelRepository;
+    private final SingleFlight<MemberSearchCondition, List<MemberTeamDto>> searchFlight;
 
-    public MemberQueryDslRepository(EntityManager em) {
+    public MemberQueryDslRepository(EntityManager em, QueryGuard queryGuard,
+                                    MemberReadModelRepository memberReadModelRepository, MeterRegistry meterRegistry) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryGuard = queryGuard;
+        this.memberReadModelRepository = memberReadModelRepository;
+        this.searchFlight = new SingleFlight<>("searchByWhere", meterRegistry, MemberQueryDslRepository::copyResult);
     }
 
     public Optional<Member> findById(Long id) {
-        Member member = queryFactory
+        Member member = queryGuard.fetchOne("MemberQueryDslRepository.findById", queryFactory
                 .selectFrom(QMember.member)
-                .where(QMember.member.id.eq(id))
-                .fetchOne();
+                .where(QMember.member.id.eq(id)));
 
         return Optional.ofNullable(member);
     }
 
     public List<Member> findAll() {
-        return queryFactory
-                .selectFrom(member)
-                .fetch();
+        return queryGuard.fetch("MemberQueryDslRepository.findAll", queryFactory
+                .selectFrom(member));
 
     }
     public List<Member> findByUsername(String username) {
-        return queryFactory
+        return queryGuard.fetch("MemberQueryDslRepository.findByUsername", queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username)));
+    }
+
+    /*
+     * 읽기 전용 조회. 스냅샷을 만들지 않고 dirty checking / flush 대상에서 빠짐 (변경해도 반영되지 않음).
+     * 조회 전 auto flush 는 읽기 전용 트랜잭션(또는 트랜잭션 밖)에서만 생략함
+     */
+    public List<Member> findAllReadOnly() {
+        return queryGuard.fetch("MemberQueryDslRepository.findAllReadOnly", readOnly(queryFactory
+                .selectFrom(member)));
+    }
+
+    public List<Member> searchMembersReadOnly(MemberSearchCondition condition) {
+        Predicate where = searchPredicate(condition);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new ArrayList<>();
+        }
+
+        return queryGuard.fetch("MemberQueryDslRepository.searchMembersReadOnly", readOnly(queryFactory
                 .selectFrom(member)
-                .where(member.username.eq(username))
-                .fetch();
+                .leftJoin(member.team, team)
+                .where(where)));
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -60,7 +104,7 @@ public class MemberQueryDslRepository {
             builder.and(member.username.eq(condition.getUsername()));
         }
 
-        if (StringUtils.hasText(condition.getUsername())) {
+        if (StringUtils.hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
         }
 
@@ -68,11 +112,16 @@ public class MemberQueryDslRepository {
             builder.and(member.age.goe(condition.getAgeGoe()));
         }
 
-        if (!ObjectUtils.isEmpty(condition.getAgeGoe())) {
+        if (!ObjectUtils.isEmpty(condition.getAgeLoe())) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        Predicate where = PredicateOptimizer.optimize(builder);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new ArrayList<>();
+        }
+
+        return queryGuard.fetch("MemberQueryDslRepository.searchByBuilder", queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -82,12 +131,34 @@ public class MemberQueryDslRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+                .where(where));
     }
 
+    /*
+     * 같은 조건의 동시 검색은 쿼리 하나를 공유함. 함께 기다린 호출자는 DTO 까지 복사된 결과를 받음.
+     * 쓰기 트랜잭션 안에서는 아직 commit 되지 않은 변경이 보여야 하므로 공유하지 않음.
+     */
     public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition) {
-        return queryFactory
+        if (inWriteTransaction()) {
+            return doSearchByWhere(condition);
+        }
+
+        MemberSearchCondition key = copyOf(condition);
+        return searchFlight.execute(key, () -> doSearchByWhere(key));
+    }
+
+    private List<MemberTeamDto> doSearchByWhere(MemberSearchCondition condition) {
+        // age 범위가 비어 있으면 어느 경로로도 결과가 없음
+        Predicate where = searchPredicate(condition);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new ArrayList<>();
+        }
+
+        if (memberReadModelRepository.isServingSearches()) {
+            return memberReadModelRepository.search(condition);
+        }
+
+        return queryGuard.fetch("MemberQueryDslRepository.searchByWhere", queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -97,13 +168,250 @@ public class MemberQueryDslRepository {
                 ))
                 .from(member)
                 .leftJoin(member.team, team)
+                .where(where));
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        Predicate where = searchPredicate(condition);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where)
+                .orderBy(MemberOrderSpecifiers.of(pageable.getSort()));
+
+        if (pageable.isPaged()) {
+            contentQuery
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+
+        List<MemberTeamDto> content = queryGuard.fetch("MemberQueryDslRepository.searchPage", contentQuery);
+
+        // count 는 team 컬럼을 쓰지 않으므로 팀 조건이 있을 때만 조인
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.count())
+                .from(member);
+        if (needsTeamJoin(condition)) {
+            countQuery.leftJoin(member.team, team);
+        }
+        countQuery.where(where);
+
+        // 첫 페이지에서 content 가 page size 보다 작거나 마지막 페이지인 경우 count 쿼리 생략
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> queryGuard.fetchOne("MemberQueryDslRepository.searchPage", countQuery));
+    }
+
+    /*
+     * 요청한 컬럼만 select 하고, team 컬럼/조건이 없으면 team 조인도 생략함.
+     * Tuple 의 컬럼 순서는 fields 순서와 같음 -> tuple.get(0, Long.class)
+     */
+    public List<Tuple> searchFields(MemberSearchCondition condition, MemberTeamField... fields) {
+        if (fields.length == 0) {
+            throw new IllegalArgumentException("At least one field must be selected");
+        }
+
+        Predicate where = searchPredicate(condition);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new ArrayList<>();
+        }
+
+        Expression<?>[] selection = Arrays.stream(fields)
+                .map(this::fieldExpression)
+                .toArray(Expression<?>[]::new);
+
+        JPAQuery<Tuple> query = queryFactory
+                .select(selection)
+                .from(member);
+
+        if (needsTeamJoin(condition, fields)) {
+            query.leftJoin(member.team, team);
+        }
+
+        return queryGuard.fetch("MemberQueryDslRepository.searchFields", query.where(where));
+    }
+
+    public List<Long> searchMemberIds(MemberSearchCondition condition) {
+        Predicate where = searchPredicate(condition);
+        if (PredicateOptimizer.isUnsatisfiable(where)) {
+            return new ArrayList<>();
+        }
+
+        JPAQuery<Long> query = queryFactory
+                .select(member.id)
+                .from(member);
+
+        if (needsTeamJoin(condition)) {
+            query.leftJoin(member.team, team);
+        }
+
+        return queryGuard.fetch("MemberQueryDslRepository.searchMemberIds", query.where(where));
+    }
+
+    public long countByTeam(Long teamId) {
+        return queryGuard.fetchOne("MemberQueryDslRepository.countByTeam", queryFactory
+                .select(member.count())
+                .from(member)
+                .where(member.team.id.eq(teamId)));
+    }
+
+    /*
+     * Team.members 컬렉션을 초기화하지 않고 팀 회원을 페이지 단위로 조회
+     */
+    public Page<Member> findByTeam(Long teamId, Pageable pageable) {
+        JPAQuery<Member> contentQuery = queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId))
+                .orderBy(MemberOrderSpecifiers.of(pageable.getSort()));
+
+        if (pageable.isPaged()) {
+            contentQuery
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+
+        List<Member> content = queryGuard.fetch("MemberQueryDslRepository.findByTeam", contentQuery);
+        return PageableExecutionUtils.getPage(content, pageable, () -> countByTeam(teamId));
+    }
+
+    public long bulkAddAge(Long teamId, int delta) {
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .where(member.team.id.eq(teamId))
+                .execute();
+        memberReadModelRepository.addAgeForTeam(teamId, delta);
+
+        // 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 남은 변경을 반영한 뒤 비움
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    /*
+     * update member set age = age + :delta where id = :id 한 번으로 처리하고 변경된 나이를 반환.
+     * 조회 -> 수정 -> flush 와 달리 동시 요청끼리 갱신을 잃어버리지 않음. 트랜잭션 안에서 호출해야 함.
+     */
+    public Optional<Integer> addAge(Long id, int delta) {
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .where(member.id.eq(id))
+                .execute();
+
+        return count == 0 ? Optional.empty() : Optional.of(syncAge(id));
+    }
+
+    /*
+     * 변경 후 나이가 [minAge, maxAge] 를 벗어나면 갱신하지 않고 empty 반환.
+     */
+    public Optional<Integer> addAgeWithin(Long id, int delta, int minAge, int maxAge) {
+        long count = queryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
+                        member.id.eq(id),
+                        member.age.add(delta).between(minAge, maxAge)
                 )
-                .fetch();
+                .execute();
+
+        return count == 0 ? Optional.empty() : Optional.of(syncAge(id));
+    }
+
+    private int syncAge(Long id) {
+        int age = currentAge(id);
+        memberReadModelRepository.changeAge(id, age);
+        return age;
+    }
+
+    private int currentAge(Long id) {
+        // 영속성 컨텍스트에 이미 로딩된 Member 가 있으면 DB 값으로 맞춰줌. 없으면 나이만 조회
+        Member loaded = em.getReference(Member.class, id);
+        if (Hibernate.isInitialized(loaded)) {
+            em.refresh(loaded);
+            return loaded.getAge();
+        }
+
+        return queryFactory
+                .select(member.age)
+                .from(member)
+                .where(member.id.eq(id))
+                .fetchOne();
+    }
+
+    private <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        query.setHint(QueryHints.HINT_READONLY, true);
+        // 쓰기 트랜잭션에서 flush 를 건너뛰면 아직 flush 되지 않은 변경이 조회 결과에서 빠짐
+        if (!inWriteTransaction()) {
+            query.setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static List<MemberTeamDto> copyResult(List<MemberTeamDto> result) {
+        List<MemberTeamDto> copy = new ArrayList<>(result.size());
+        for (MemberTeamDto dto : result) {
+            copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName()));
+        }
+        return copy;
+    }
+
+    private MemberSearchCondition copyOf(MemberSearchCondition condition) {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(condition.getUsername());
+        copy.setTeamName(condition.getTeamName());
+        copy.setAgeGoe(condition.getAgeGoe());
+        copy.setAgeLoe(condition.getAgeLoe());
+        return copy;
+    }
+
+    private Expression<?> fieldExpression(MemberTeamField field) {
+        switch (field) {
+            case MEMBER_ID:
+                return member.id;
+            case USERNAME:
+                return member.username;
+            case AGE:
+                return member.age;
+            case TEAM_ID:
+                return member.team.id;
+            case TEAM_NAME:
+                return team.name;
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    /*
+     * 검색 조건을 정리한 where 절. 조건이 없으면 null, 결과가 없을 조건이면 PredicateOptimizer.UNSATISFIABLE
+     */
+    private Predicate searchPredicate(MemberSearchCondition condition) {
+        return PredicateOptimizer.optimize(ExpressionUtils.allOf(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        ));
+    }
+
+    private boolean needsTeamJoin(MemberSearchCondition condition, MemberTeamField... fields) {
+        return StringUtils.hasText(condition.getTeamName())
+                || Arrays.stream(fields).anyMatch(MemberTeamField::requiresTeamJoin);
     }
 
 
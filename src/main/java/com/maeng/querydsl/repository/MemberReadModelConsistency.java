@@ -0,0 +1,26 @@
+package com.maeng.querydsl.repository;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberReadModelConsistency {
+
+    // member 는 있는데 read model 에 없는 row
+    private final long missing;
+    // 값이 member / team 과 다른 row
+    private final long stale;
+    // member 가 삭제됐는데 남아있는 row
+    private final long orphaned;
+
+    public MemberReadModelConsistency(long missing, long stale, long orphaned) {
+        this.missing = missing;
+        this.stale = stale;
+        this.orphaned = orphaned;
+    }
+
+    public boolean isConsistent() {
+        return missing == 0 && stale == 0 && orphaned == 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.maeng.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * member.read-model.check-cron 주기로 read model 을 검사하고, rebuild-on-drift 면 불일치 시 다시 만듦.
+ */
+@Slf4j
+@Component
+public class MemberReadModelJob {
+
+    private final MemberReadModelRepository memberReadModelRepository;
+    private final MemberReadModelProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberReadModelJob(MemberReadModelRepository memberReadModelRepository,
+                              MemberReadModelProperties properties,
+                              PlatformTransactionManager transactionManager) {
+        this.memberReadModelRepository = memberReadModelRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${member.read-model.check-cron:-}")
+    public void checkAndRepair() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        MemberReadModelConsistency consistency = transactionTemplate.execute(status -> memberReadModelRepository.check());
+        if (consistency.isConsistent()) {
+            log.debug("Member read model is consistent");
+            return;
+        }
+
+        log.warn("Member read model drift detected: {}", consistency);
+        if (properties.isRebuildOnDrift()) {
+            rebuild();
+        }
+    }
+
+    public int rebuild() {
+        int rows = transactionTemplate.execute(status -> memberReadModelRepository.rebuild());
+        log.info("Rebuilt member read model with {} rows", rows);
+        return rows;
+    }
+}
@@ -0,0 +1,31 @@
+package com.maeng.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.read-model")
+public class MemberReadModelProperties {
+
+    /**
+     * 쓰기 시 member_team_read_model 동기화.
+     */
+    private boolean enabled;
+
+    /**
+     * searchByWhere 를 조인 없이 read model 에서 조회. enabled 일 때만 적용됨.
+     */
+    private boolean search;
+
+    /**
+     * 일관성 검사 주기 (cron). "-" 면 실행하지 않음.
+     */
+    private String checkCron = "-";
+
+    /**
+     * 검사에서 불일치가 발견되면 다시 만듦.
+     */
+    private boolean rebuildOnDrift;
+}
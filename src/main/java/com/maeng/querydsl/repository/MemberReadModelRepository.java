@@ -0,0 +1,263 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.dto.QMemberTeamDto;
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.MemberTeamReadModel;
+import com.maeng.querydsl.entity.QTeam;
+import com.maeng.querydsl.entity.Team;
+import com.maeng.querydsl.repository.support.QueryGuard;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static com.maeng.querydsl.entity.QMemberTeamReadModel.memberTeamReadModel;
+
+/*
+ * member_team_read_model 동기화 / 조회 / 검사 / 재생성.
+ * 동기화 메서드는 호출한 쪽 트랜잭션에서 실행되고, member.read-model.enabled 가 꺼져 있으면 아무것도 하지 않음.
+ */
+@Repository
+public class MemberReadModelRepository {
+
+    private static final String COUNT_MISSING =
+            "select count(*) from member m" +
+            " left join member_team_read_model r on r.member_id = m.id" +
+            " where r.member_id is null";
+
+    private static final String COUNT_STALE =
+            "select count(*) from member m" +
+            " join member_team_read_model r on r.member_id = m.id" +
+            " left join team t on t.id = m.team_id" +
+            " where r.username is distinct from m.username" +
+            "    or r.age <> m.age" +
+            "    or r.team_id is distinct from m.team_id" +
+            "    or r.team_name is distinct from t.name";
+
+    private static final String COUNT_ORPHANED =
+            "select count(*) from member_team_read_model r" +
+            " left join member m on m.id = r.member_id" +
+            " where m.id is null";
+
+    private static final String DELETE_ALL = "delete from member_team_read_model";
+
+    private static final String INSERT_ALL =
+            "insert into member_team_read_model (member_id, username, age, team_id, team_name)" +
+            " select m.id, m.username, m.age, m.team_id, t.name" +
+            " from member m" +
+            " left join team t on t.id = m.team_id";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final QueryGuard queryGuard;
+    private final MemberReadModelProperties properties;
+
+    public MemberReadModelRepository(EntityManager em, QueryGuard queryGuard, MemberReadModelProperties properties) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.queryGuard = queryGuard;
+        this.properties = properties;
+    }
+
+    public boolean isServingSearches() {
+        return properties.isEnabled() && properties.isSearch();
+    }
+
+    /*
+     * 방금 persist 한 회원. read model 행이 있을 수 없으므로 조회 없이 바로 persist
+     */
+    public void insert(Member member) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        em.persist(new MemberTeamReadModel(member, teamName(member.getTeam())));
+    }
+
+    public void upsert(Member member) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        String teamName = teamName(member.getTeam());
+        MemberTeamReadModel row = em.find(MemberTeamReadModel.class, member.getId());
+        if (row == null) {
+            em.persist(new MemberTeamReadModel(member, teamName));
+        } else {
+            row.update(member, teamName);
+        }
+    }
+
+    /*
+     * 여러 행을 한 번에 영속성 컨텍스트에 올려서 이어지는 upsert 의 em.find 가 select 하지 않게 함
+     */
+    public void preload(Collection<Long> memberIds) {
+        if (!properties.isEnabled() || memberIds.isEmpty()) {
+            return;
+        }
+
+        queryFactory
+                .selectFrom(memberTeamReadModel)
+                .where(memberTeamReadModel.memberId.in(memberIds))
+                .fetch();
+    }
+
+    public void renameTeam(Long teamId, String teamName) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        em.flush();
+        queryFactory
+                .update(memberTeamReadModel)
+                .set(memberTeamReadModel.teamName, teamName)
+                .where(memberTeamReadModel.teamId.eq(teamId))
+                .execute();
+        refreshManaged(row -> teamId.equals(row.getTeamId()));
+    }
+
+    public void changeAge(Long memberId, int age) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        em.flush();
+        queryFactory
+                .update(memberTeamReadModel)
+                .set(memberTeamReadModel.age, age)
+                .where(memberTeamReadModel.memberId.eq(memberId))
+                .execute();
+        refreshManaged(row -> memberId.equals(row.getMemberId()));
+    }
+
+    public void addAgeForTeam(Long teamId, int delta) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        em.flush();
+        queryFactory
+                .update(memberTeamReadModel)
+                .set(memberTeamReadModel.age, memberTeamReadModel.age.add(delta))
+                .where(memberTeamReadModel.teamId.eq(teamId))
+                .execute();
+        refreshManaged(row -> teamId.equals(row.getTeamId()));
+    }
+
+    /*
+     * searchByWhere 와 같은 조건을 조인 없이 read model 인덱스로 조회
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return queryGuard.fetch("MemberReadModelRepository.search", queryFactory
+                .select(new QMemberTeamDto(
+                        memberTeamReadModel.memberId,
+                        memberTeamReadModel.username,
+                        memberTeamReadModel.age,
+                        memberTeamReadModel.teamId,
+                        memberTeamReadModel.teamName
+                ))
+                .from(memberTeamReadModel)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                ));
+    }
+
+    public MemberReadModelConsistency check() {
+        return new MemberReadModelConsistency(count(COUNT_MISSING), count(COUNT_STALE), count(COUNT_ORPHANED));
+    }
+
+    /*
+     * read model 을 member / team 에서 다시 만듦. 영속성 컨텍스트는 비워짐
+     */
+    public int rebuild() {
+        em.flush();
+        em.createNativeQuery(DELETE_ALL).executeUpdate();
+        int count = em.createNativeQuery(INSERT_ALL).executeUpdate();
+        em.clear();
+        return count;
+    }
+
+    /*
+     * 로딩된 팀이면 그대로 쓰고, 프록시면 초기화하지 않고 이름만 조회
+     */
+    private String teamName(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (Hibernate.isInitialized(team)) {
+            return team.getName();
+        }
+
+        return queryFactory
+                .select(QTeam.team.name)
+                .from(QTeam.team)
+                .where(QTeam.team.id.eq(team.getId()))
+                .fetchOne();
+    }
+
+    /*
+     * 벌크 update 는 영속성 컨텍스트를 거치지 않으므로, 이미 로딩된 read model 중 대상 행만 DB 값으로 다시 읽음.
+     * 남은 변경이 덮이지 않도록 update 전에 flush 해둠
+     */
+    private void refreshManaged(Predicate<MemberTeamReadModel> affected) {
+        PersistenceContext persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContext();
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof MemberTeamReadModel && affected.test((MemberTeamReadModel) entity)) {
+                em.refresh(entity);
+            }
+        }
+    }
+
+    private long count(String sql) {
+        return ((Number) em.createNativeQuery(sql).getSingleResult()).longValue();
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        if(!StringUtils.hasText(username)) {
+            return null;
+        }
+
+        return memberTeamReadModel.username.eq(username);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        if(!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        return memberTeamReadModel.teamName.eq(teamName);
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        if(ObjectUtils.isEmpty(ageGoe)) {
+            return null;
+        }
+
+        return memberTeamReadModel.age.goe(ageGoe);
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        if(ObjectUtils.isEmpty(ageLoe)) {
+            return null;
+        }
+
+        return memberTeamReadModel.age.loe(ageLoe);
+    }
+}
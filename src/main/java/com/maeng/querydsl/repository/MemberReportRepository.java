@@ -0,0 +1,136 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.dto.QMemberTeamDto;
+import com.maeng.querydsl.entity.QMember;
+import com.maeng.querydsl.repository.support.QueryGuard;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.maeng.querydsl.entity.QMember.member;
+import static com.maeng.querydsl.entity.QTeam.team;
+
+/*
+ * 팀 단위 리포트 쿼리.
+ * JPQL 은 window function 을 지원하지 않으므로 native SQL 로 member 를 한 번만 읽음.
+ * *BySubquery 는 같은 결과를 상관 서브쿼리로 구하는 기존 방식 (결과 비교 / 벤치마크용)
+ */
+@Repository
+public class MemberReportRepository {
+
+    private static final String OLDER_THAN_TEAM_AVERAGE =
+            "select r.id, r.username, r.age, r.team_id, r.team_name" +
+            " from (" +
+            "   select m.id, m.username, m.age, m.team_id, t.name as team_name," +
+            "          avg(cast(m.age as double)) over (partition by m.team_id) as team_avg" +
+            "   from member m" +
+            "   join team t on t.id = m.team_id" +
+            " ) r" +
+            " where r.age > r.team_avg" +
+            " order by r.id";
+
+    private static final String OLDEST_PER_TEAM =
+            "select r.id, r.username, r.age, r.team_id, r.team_name" +
+            " from (" +
+            "   select m.id, m.username, m.age, m.team_id, t.name as team_name," +
+            "          row_number() over (partition by m.team_id order by m.age desc, m.id asc) as rn" +
+            "   from member m" +
+            "   join team t on t.id = m.team_id" +
+            " ) r" +
+            " where r.rn <= :limit" +
+            " order by r.id";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final QueryGuard queryGuard;
+
+    public MemberReportRepository(EntityManager em, QueryGuard queryGuard) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.queryGuard = queryGuard;
+    }
+
+    /*
+     * 자기 팀 평균 나이보다 나이가 많은 회원 (id 순)
+     */
+    public List<MemberTeamDto> findOlderThanTeamAverage() {
+        return queryGuard.fetchRows("MemberReportRepository.findOlderThanTeamAverage",
+                        em.createNativeQuery(OLDER_THAN_TEAM_AVERAGE))
+                .stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * 팀별 나이가 많은 순 상위 limit 명. 나이가 같으면 id 가 작은 회원 우선 (id 순)
+     */
+    public List<MemberTeamDto> findOldestPerTeam(int limit) {
+        return queryGuard.fetchRows("MemberReportRepository.findOldestPerTeam",
+                        em.createNativeQuery(OLDEST_PER_TEAM).setParameter("limit", limit))
+                .stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    public List<MemberTeamDto> findOlderThanTeamAverageBySubquery() {
+        QMember teamMember = new QMember("teamMember");
+
+        return queryGuard.fetch("MemberReportRepository.findOlderThanTeamAverageBySubquery", queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .join(member.team, team)
+                .where(member.age.gt(
+                        JPAExpressions
+                                .select(teamMember.age.avg())
+                                .from(teamMember)
+                                .where(teamMember.team.eq(member.team))
+                ))
+                .orderBy(member.id.asc()));
+    }
+
+    public List<MemberTeamDto> findOldestPerTeamBySubquery(int limit) {
+        QMember older = new QMember("older");
+
+        return queryGuard.fetch("MemberReportRepository.findOldestPerTeamBySubquery", queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name
+                ))
+                .from(member)
+                .join(member.team, team)
+                .where(JPAExpressions
+                        .select(older.count())
+                        .from(older)
+                        .where(
+                                older.team.eq(member.team),
+                                older.age.gt(member.age)
+                                        .or(older.age.eq(member.age).and(older.id.lt(member.id)))
+                        )
+                        .lt((long) limit))
+                .orderBy(member.id.asc()));
+    }
+
+    private MemberTeamDto toDto(Object[] row) {
+        return new MemberTeamDto(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                ((Number) row[2]).intValue(),
+                ((Number) row[3]).longValue(),
+                (String) row[4]
+        );
+    }
+}
@@ -0,0 +1,55 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.entity.Member;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Consumer;
+
+/*
+ * 배치/스캔 작업용 전체 조회.
+ * StatelessSession 은 영속성 컨텍스트, 스냅샷, dirty checking 이 없어서 읽은 엔티티가 바로 GC 대상이 됨.
+ * 대신 lazy 연관관계(team)는 초기화할 수 없고, 호출한 쪽 트랜잭션과 별개의 커넥션을 사용함.
+ */
+@Repository
+public class MemberScanRepository {
+
+    private static final int DEFAULT_FETCH_SIZE = 1_000;
+
+    private final SessionFactory sessionFactory;
+
+    public MemberScanRepository(EntityManagerFactory emf) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+    }
+
+    public long scanAll(Consumer<Member> consumer) {
+        return scanAll(DEFAULT_FETCH_SIZE, consumer);
+    }
+
+    public long scanAll(int fetchSize, Consumer<Member> consumer) {
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            ScrollableResults results = session
+                    .createQuery("select m from Member m", Member.class)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                long count = 0;
+                while (results.next()) {
+                    consumer.accept((Member) results.get(0));
+                    count++;
+                }
+                return count;
+            } finally {
+                results.close();
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.Team;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * 회원 저장을 모아서 한 트랜잭션으로 flush 하는 write-behind 버퍼.
+ *
+ * - write() 는 그 시점의 username / age / team 을 복사해 두고 바로 반환. flush 전까지는 DB 에 없음 (durable 하지 않음)
+ * - 같은 id(새 회원은 같은 인스턴스)에 대한 반복 쓰기는 마지막 것만 남음
+ * - maxBatchSize 도달 시 또는 flushInterval 마다 flush, flush() 호출 시 commit 까지 기다림
+ * - 한 번의 flush 는 트랜잭션 하나:
+ *     insert 는 IDENTITY id 라서 Hibernate 가 batch 하지 않으므로 회원마다 insert 한 번
+ *     update 는 대상 회원을 id in (...) select 한 번으로 읽은 뒤 JDBC batch (flush 세션에만 jdbcBatchSize 적용)
+ * - 새 회원의 id 는 commit 된 뒤에만 호출자의 Member 에 채워짐
+ * - 배치가 실패하면 회원 하나씩 다시 저장해서 실패한 회원만 골라냄.
+ *   실패한 회원은 maxRetries 번까지 다음 flush 에 재시도하고, 그래도 실패하면 deadLetters() 로 옮김
+ * - 종료 시 남은 쓰기를 모두 flush. 종료 후의 write() 는 호출한 스레드에서 바로 flush
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.write-behind", name = "enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final EntityManager em;
+    private final EntityPersister memberPersister;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberWriteBehindProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    // 쓰기는 read lock 을 공유하고, flush 가 write lock 으로 버퍼를 교체함
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile ConcurrentHashMap<Object, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    // 실패한 쓰기의 시도 횟수와, 재시도를 포기한 회원
+    private final Map<Object, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final Queue<Member> deadLetters = new ConcurrentLinkedQueue<>();
+
+    private final Timer flushTimer;
+    private final Counter coalescedWrites;
+    private final Counter flushFailures;
+    private final Counter retriedWrites;
+    private final Counter deadLetteredWrites;
+
+    public MemberWriteBehindBuffer(MemberJpaRepository memberJpaRepository,
+                                   EntityManager em,
+                                   EntityManagerFactory entityManagerFactory,
+                                   PlatformTransactionManager transactionManager,
+                                   MemberWriteBehindProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.em = em;
+        this.memberPersister = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Member.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.flushTimer = meterRegistry.timer("member.write_behind.flush");
+        this.coalescedWrites = meterRegistry.counter("member.write_behind.coalesced");
+        this.flushFailures = meterRegistry.counter("member.write_behind.flush.failures");
+        this.retriedWrites = meterRegistry.counter("member.write_behind.retried");
+        this.deadLetteredWrites = meterRegistry.counter("member.write_behind.dead_lettered");
+        meterRegistry.gauge("member.write_behind.depth", this, MemberWriteBehindBuffer::depth);
+        meterRegistry.gauge("member.write_behind.dead_letters", deadLetters, Queue::size);
+
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void write(Member member) {
+        PendingWrite write = new PendingWrite(member);
+
+        int depth;
+        swapLock.readLock().lock();
+        try {
+            if (pending.put(write.key(), write) != null) {
+                coalescedWrites.increment();
+            }
+            depth = pending.size();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        if (scheduler.isShutdown()) {
+            // drain() 이후에는 flush 해 줄 스레드가 없음
+            flush();
+            return;
+        }
+        if (depth >= properties.getMaxBatchSize() && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                flush();
+            }
+        }
+    }
+
+    /*
+     * 지금까지 write() 된 회원을 commit 까지 반영함.
+     * 일부 회원이 저장되지 못하면 첫 번째 실패를 던짐 (나머지 회원은 commit 된 상태).
+     */
+    public void flush() {
+        synchronized (flushMonitor) {
+            flushRequested.set(false);
+
+            Map<Object, PendingWrite> batch;
+            swapLock.writeLock().lock();
+            try {
+                batch = pending;
+                pending = new ConcurrentHashMap<>();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                flushTimer.record(() -> saveAll(ordered(batch.values())));
+                batch.keySet().forEach(failedAttempts::remove);
+                return;
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                if (batch.size() == 1) {
+                    batch.forEach((key, write) -> handleFailure(key, write, e));
+                    throw e;
+                }
+                log.warn("Write-behind flush of {} members failed, saving them one by one", batch.size(), e);
+            }
+
+            RuntimeException firstFailure = null;
+            for (Map.Entry<Object, PendingWrite> entry : batch.entrySet()) {
+                try {
+                    saveAll(Collections.singletonList(entry.getValue()));
+                    failedAttempts.remove(entry.getKey());
+                } catch (RuntimeException e) {
+                    handleFailure(entry.getKey(), entry.getValue(), e);
+                    if (firstFailure == null) {
+                        firstFailure = e;
+                    }
+                }
+            }
+            if (firstFailure != null) {
+                throw firstFailure;
+            }
+        }
+    }
+
+    public int depth() {
+        return pending.size();
+    }
+
+    /*
+     * maxRetries 번 재시도해도 저장하지 못한 회원.
+     */
+    public List<Member> deadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    @PreDestroy
+    public void drain() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 2 + 1000, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    private void saveAll(List<PendingWrite> writes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            SessionImplementor session = em.unwrap(SessionImplementor.class);
+            session.setJdbcBatchSize(properties.getJdbcBatchSize());
+
+            // 호출자의 Member 대신 write() 시점 값으로 만든 인스턴스를 저장함
+            Map<Member, Member> inserted = new LinkedHashMap<>();
+            List<Member> updated = new ArrayList<>();
+            for (PendingWrite write : writes) {
+                // 팀은 이 세션의 프록시로 걸어서 호출자의 Team (members 컬렉션) 을 건드리지 않음
+                Team team = write.teamId == null ? null : em.getReference(Team.class, write.teamId);
+                Member copy = new Member(write.username, write.age, team);
+                if (write.id == null) {
+                    memberJpaRepository.save(copy);
+                    inserted.put(write.source, copy);
+                } else {
+                    memberPersister.setIdentifier(copy, write.id, session);
+                    updated.add(copy);
+                }
+            }
+            memberJpaRepository.mergeAll(updated);
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int completionStatus) {
+                    // commit 된 경우에만 호출자의 Member 에 id 를 채움. 롤백되면 호출자 쪽은 그대로
+                    if (completionStatus == STATUS_COMMITTED) {
+                        inserted.forEach((source, copy) -> memberPersister.setIdentifier(source, copy.getId(), session));
+                    }
+                }
+            });
+        });
+    }
+
+    private void handleFailure(Object key, PendingWrite write, RuntimeException e) {
+        int attempts = failedAttempts.merge(key, 1, Integer::sum);
+        if (attempts > properties.getMaxRetries()) {
+            failedAttempts.remove(key);
+            deadLetters.add(write.source);
+            deadLetteredWrites.increment();
+            log.error("Write-behind save of {} failed {} times and was moved to dead letters", write.source, attempts, e);
+            return;
+        }
+
+        // 그 사이 같은 회원에 대한 새 쓰기가 들어왔으면 그쪽이 우선
+        swapLock.readLock().lock();
+        try {
+            pending.putIfAbsent(key, write);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        retriedWrites.increment();
+    }
+
+    /*
+     * update 는 id 순으로 모아서 batch 로 나가게 하고, insert 는 그 뒤에 실행.
+     */
+    private static List<PendingWrite> ordered(Iterable<PendingWrite> writes) {
+        List<PendingWrite> ordered = new ArrayList<>();
+        writes.forEach(ordered::add);
+        ordered.sort(Comparator.comparing((PendingWrite write) -> write.id, Comparator.nullsLast(Comparator.naturalOrder())));
+        return ordered;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // flush() 에서 이미 기록함
+        }
+    }
+
+    /*
+     * write() 시점의 값. 호출자가 이후에 Member 를 바꿔도 flush 스레드는 이 값만 읽음
+     */
+    private static class PendingWrite {
+        private final Member source;
+        private final Long id;
+        private final String username;
+        private final int age;
+        private final Long teamId;
+
+        private PendingWrite(Member source) {
+            Team team = source.getTeam();
+            if (team != null && team.getId() == null) {
+                throw new IllegalArgumentException("Team of a write-behind member must be saved first: " + team);
+            }
+
+            this.source = source;
+            this.id = source.getId();
+            this.username = source.getUsername();
+            this.age = source.getAge();
+            this.teamId = team == null ? null : team.getId();
+        }
+
+        private Object key() {
+            return id != null ? id : source;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.maeng.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.write-behind")
+public class MemberWriteBehindProperties {
+
+    private boolean enabled;
+
+    /**
+     * 버퍼에 쌓인 회원 수가 이 값에 도달하면 바로 flush.
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 버퍼에 남은 쓰기를 flush 하는 주기. 쓰기가 DB 에 반영되기까지의 최대 지연.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * flush 세션에만 적용하는 JDBC batch 크기. update 에만 효과가 있음 (IDENTITY id 의 insert 는 Hibernate 가 batch 하지 않음).
+     */
+    private int jdbcBatchSize = 100;
+
+    /**
+     * 저장에 실패한 회원을 다음 flush 에 다시 시도하는 횟수. 넘으면 dead letter 로 옮김.
+     */
+    private int maxRetries = 3;
+}
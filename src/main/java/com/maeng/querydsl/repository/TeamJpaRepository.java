@@ -0,0 +1,40 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.entity.Team;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@Repository
+public class TeamJpaRepository {
+
+    private final EntityManager em;
+    private final MemberReadModelRepository memberReadModelRepository;
+
+    public TeamJpaRepository(EntityManager em, MemberReadModelRepository memberReadModelRepository) {
+        this.em = em;
+        this.memberReadModelRepository = memberReadModelRepository;
+    }
+
+    public void save(Team team) {
+        em.persist(team);
+    }
+
+    public Optional<Team> findById(Long id) {
+        return Optional.ofNullable(em.find(Team.class, id));
+    }
+
+    /*
+     * 팀 이름 변경. read model 의 team_name 도 같은 트랜잭션에서 갱신함
+     */
+    public void rename(Long teamId, String name) {
+        Team team = em.find(Team.class, teamId);
+        if (team == null) {
+            throw new IllegalArgumentException("Team not found: " + teamId);
+        }
+
+        team.setName(name);
+        memberReadModelRepository.renameTeam(teamId, name);
+    }
+}
@@ -0,0 +1,14 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.Value;
+
+import java.util.List;
+
+/*
+ * 실제로 실행된 SQL 과 JDBC 파라미터 (1번부터 순서대로, limit/offset 포함)
+ */
+@Value
+public class CapturedStatement {
+    String sql;
+    List<Object> bindings;
+}
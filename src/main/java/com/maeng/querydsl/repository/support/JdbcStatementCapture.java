@@ -0,0 +1,102 @@
+package com.maeng.querydsl.repository.support;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * DataSource 를 감싸서 현재 스레드에서 clear() 이후 처음 실행된 select 의 SQL 과 JDBC 파라미터를 기억함.
+ * Hibernate 가 붙이는 limit ? / offset ? 까지 JDBC 순서대로 남으므로 그대로 EXPLAIN 할 수 있음.
+ * querydsl.slow-query.explain 이 꺼져 있으면 감싸지 않음.
+ */
+@Component
+public class JdbcStatementCapture implements BeanPostProcessor {
+
+    private static final ThreadLocal<CapturedStatement> FIRST_QUERY = new ThreadLocal<>();
+
+    // BeanPostProcessor 는 먼저 만들어지므로 설정은 사용할 때 꺼냄
+    private final ObjectProvider<SlowQueryProperties> properties;
+
+    public JdbcStatementCapture(ObjectProvider<SlowQueryProperties> properties) {
+        this.properties = properties;
+    }
+
+    /*
+     * 쿼리 실행 직전에 호출해서 이전 쿼리의 SQL 이 남지 않게 함
+     */
+    static void clear() {
+        FIRST_QUERY.remove();
+    }
+
+    /*
+     * clear() 이후 처음 실행된 select. 없으면 null
+     */
+    static CapturedStatement captured() {
+        return FIRST_QUERY.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && properties.getObject().isExplain()) {
+            DataSource target = (DataSource) bean;
+            return proxy(DataSource.class, target, (method, args) -> {
+                Object result = method.invoke(target, args);
+                return result instanceof Connection ? connection((Connection) result) : result;
+            });
+        }
+        return bean;
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return statement((PreparedStatement) result, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement statement(PreparedStatement target, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(PreparedStatement.class, target, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("executeQuery") && (args == null || args.length == 0) && FIRST_QUERY.get() == null) {
+                FIRST_QUERY.set(new CapturedStatement(sql, new ArrayList<>(parameters.values())));
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return invocation.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(JdbcStatementCapture.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,69 @@
+package com.maeng.querydsl.repository.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+ * querydsl.jdbc 설정을 Hikari 풀과 Hibernate 에 적용.
+ * 풀 metric(hikaricp.connections.active/idle/pending, hikaricp.connections.acquire)은 actuator 가 등록함.
+ */
+@Component
+public class JdbcTuning implements BeanPostProcessor, HibernatePropertiesCustomizer {
+
+    private static final String FETCH_SIZE = "hibernate.jdbc.fetch_size";
+    private static final String PLAN_CACHE_MAX_SIZE = "hibernate.query.plan_cache_max_size";
+    private static final String GENERATE_STATISTICS = "hibernate.generate_statistics";
+    private static final String H2_QUERY_CACHE_SIZE = "QUERY_CACHE_SIZE";
+
+    // BeanPostProcessor 는 먼저 만들어지므로 설정은 사용할 때 꺼냄
+    private final ObjectProvider<JdbcTuningProperties> properties;
+
+    public JdbcTuning(ObjectProvider<JdbcTuningProperties> properties) {
+        this.properties = properties;
+    }
+
+    /*
+     * 설정 바인딩 후, p6spy 가 감싸기 전에 적용
+     */
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            apply((HikariDataSource) bean, properties.getObject());
+        }
+        return bean;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        JdbcTuningProperties tuning = properties.getObject();
+        JdbcTuningProperties.StatementCache statementCache = tuning.getStatementCache();
+
+        if (tuning.getFetchSize() > 0) {
+            hibernateProperties.put(FETCH_SIZE, tuning.getFetchSize());
+        }
+        hibernateProperties.put(PLAN_CACHE_MAX_SIZE, statementCache.isEnabled() ? statementCache.getSize() : 2);
+        if (statementCache.isRecordStats()) {
+            hibernateProperties.put(GENERATE_STATISTICS, true);
+        }
+    }
+
+    private static void apply(HikariDataSource dataSource, JdbcTuningProperties tuning) {
+        JdbcTuningProperties.Pool pool = tuning.getPool();
+        dataSource.setMaximumPoolSize(pool.getMaximumSize());
+        dataSource.setMinimumIdle(pool.getMinimumIdle() == null ? pool.getMaximumSize() : pool.getMinimumIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+
+        // H2 는 prepared statement 를 세션(커넥션)별로 캐시함. 다른 드라이버는 자체 설정을 사용
+        String url = dataSource.getJdbcUrl();
+        if (url != null && url.startsWith("jdbc:h2:")) {
+            JdbcTuningProperties.StatementCache statementCache = tuning.getStatementCache();
+            dataSource.addDataSourceProperty(H2_QUERY_CACHE_SIZE,
+                    String.valueOf(statementCache.isEnabled() ? statementCache.getSize() : 0));
+        }
+    }
+}
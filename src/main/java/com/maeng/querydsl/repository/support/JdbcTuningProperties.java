@@ -0,0 +1,94 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/*
+ * 커넥션 풀, statement 캐시, fetch size. 잘못된 값이면 시작 시 실패함.
+ * spring.datasource.hikari 의 같은 항목보다 우선함.
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "querydsl.jdbc")
+public class JdbcTuningProperties {
+
+    @Valid
+    private final Pool pool = new Pool();
+
+    @Valid
+    private final StatementCache statementCache = new StatementCache();
+
+    /**
+     * JDBC fetch size (hibernate.jdbc.fetch_size). 0 이면 드라이버 기본값.
+     */
+    @Min(0)
+    @Max(100_000)
+    private int fetchSize = 0;
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        /**
+         * 최대 커넥션 수. 병렬 스캔(member.parallel-scan.parallelism)과 요청 스레드가 함께 사용함.
+         */
+        @Min(1)
+        @Max(200)
+        private int maximumSize = 10;
+
+        /**
+         * 유지할 최소 유휴 커넥션 수. maximum-size 이하, 설정하지 않으면 maximum-size 와 같음 (고정 크기 풀).
+         */
+        @Min(0)
+        private Integer minimumIdle;
+
+        /**
+         * 커넥션을 얻기까지 기다리는 최대 시간. Hikari 최소값은 250ms.
+         */
+        @NotNull
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+
+        @AssertTrue(message = "minimum-idle must not exceed maximum-size")
+        public boolean isMinimumIdleWithinMaximum() {
+            return minimumIdle == null || minimumIdle <= maximumSize;
+        }
+
+        @AssertTrue(message = "connection-timeout must be at least 250ms")
+        public boolean isConnectionTimeoutSupported() {
+            return connectionTimeout == null || connectionTimeout.toMillis() >= 250;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class StatementCache {
+
+        /**
+         * 끄면 H2 세션의 prepared statement 캐시를 없애고 Hibernate 쿼리 계획 캐시를 최소(2)로 줄임.
+         */
+        private boolean enabled = true;
+
+        /**
+         * H2 QUERY_CACHE_SIZE (커넥션별) 와 hibernate.query.plan_cache_max_size.
+         */
+        @Min(1)
+        @Max(10_000)
+        private int size = 256;
+
+        /**
+         * Hibernate 통계(hibernate.generate_statistics)를 켜서 쿼리 계획 캐시 hit/miss 를
+         * querydsl.hibernate.query_plan_cache.* 로 노출. 세션마다 비용이 있어 load 프로필에서만 켬.
+         */
+        private boolean recordStats = false;
+    }
+}
@@ -0,0 +1,277 @@
+package com.maeng.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * SQL 생성 전에 BooleanBuilder / BooleanExpression 트리를 정리함.
+ *   - null, true 상수, 빈 BooleanBuilder 제거
+ *   - 같은 항 중복 제거
+ *   - 숫자 / 날짜 path 하나에 대한 eq / goe / gt / loe / lt / between 을 범위 하나로 합침 (between, 같으면 eq)
+ *   - 만족할 수 없는 조건 (age >= 40 and age <= 20, 서로 다른 eq) 은 UNSATISFIABLE 로 바꿈
+ * 문자열은 DB collation 에 따라 비교 결과가 Java 와 달라서 ('a' = 'A' 등) 합치지 않고 그대로 둠.
+ * or 는 각 항을 정리한 뒤 만족할 수 없는 항만 뺌. not 등 나머지 연산은 그대로 둠.
+ */
+public final class PredicateOptimizer {
+
+    /**
+     * 어떤 row 도 만족하지 않는 조건. 이 값이면 쿼리를 실행하지 않아도 결과가 비어 있음.
+     */
+    public static final Predicate UNSATISFIABLE = Expressions.booleanTemplate("1 = 0");
+
+    private PredicateOptimizer() {
+    }
+
+    public static boolean isUnsatisfiable(Predicate predicate) {
+        return predicate == UNSATISFIABLE;
+    }
+
+    /*
+     * 조건이 없으면 null, 만족할 수 없으면 UNSATISFIABLE
+     */
+    public static Predicate optimize(Predicate predicate) {
+        List<Predicate> terms = new ArrayList<>();
+        flattenAnd(predicate, terms);
+
+        // path 별 범위와 나머지 항을 따로 찾되, 결과는 처음 나온 순서대로 유지
+        // (BooleanPath 는 Path 이면서 Predicate 라서 한 map 에 같이 두면 key 가 겹침)
+        Map<Path<?>, Range> ranges = new HashMap<>();
+        Set<Predicate> others = new HashSet<>();
+        List<Object> slots = new ArrayList<>();
+        for (Predicate term : terms) {
+            Predicate simplified = simplify(term);
+            if (simplified == null) {
+                continue;
+            }
+            if (isUnsatisfiable(simplified)) {
+                return UNSATISFIABLE;
+            }
+
+            Bound bound = Bound.of(simplified);
+            if (bound == null) {
+                if (others.add(simplified)) {
+                    slots.add(simplified);
+                }
+                continue;
+            }
+
+            Range range = ranges.get(bound.path);
+            if (range == null) {
+                range = new Range(bound.path);
+                ranges.put(bound.path, range);
+                slots.add(range);
+            }
+            if (!range.add(bound)) {
+                return UNSATISFIABLE;
+            }
+        }
+
+        List<Predicate> result = new ArrayList<>();
+        for (Object slot : slots) {
+            if (slot instanceof Range) {
+                Range range = (Range) slot;
+                if (range.isEmpty()) {
+                    return UNSATISFIABLE;
+                }
+                result.addAll(range.toPredicates());
+            } else {
+                result.add((Predicate) slot);
+            }
+        }
+        return ExpressionUtils.allOf(result);
+    }
+
+    private static void flattenAnd(Predicate predicate, List<Predicate> terms) {
+        if (predicate instanceof BooleanBuilder) {
+            predicate = ((BooleanBuilder) predicate).getValue();
+        }
+        if (predicate == null) {
+            return;
+        }
+
+        if (predicate instanceof Operation && ((Operation<?>) predicate).getOperator() == Ops.AND) {
+            for (Expression<?> arg : ((Operation<?>) predicate).getArgs()) {
+                flattenAnd((Predicate) arg, terms);
+            }
+        } else {
+            terms.add(predicate);
+        }
+    }
+
+    private static Predicate simplify(Predicate term) {
+        // Expressions.TRUE 처럼 상수를 감싼 표현식도 포함
+        Expression<?> unwrapped = ExpressionUtils.extract(term);
+        if (unwrapped instanceof Constant) {
+            return Boolean.TRUE.equals(((Constant<?>) unwrapped).getConstant()) ? null : UNSATISFIABLE;
+        }
+        if (term instanceof Operation && ((Operation<?>) term).getOperator() == Ops.OR) {
+            return simplifyOr((Operation<?>) term);
+        }
+        return term;
+    }
+
+    private static Predicate simplifyOr(Operation<?> or) {
+        List<Predicate> alternatives = new ArrayList<>();
+        for (Expression<?> arg : or.getArgs()) {
+            Predicate alternative = optimize((Predicate) arg);
+            if (alternative == null) {
+                // 한쪽이 항상 참이면 or 전체가 항상 참
+                return null;
+            }
+            if (!isUnsatisfiable(alternative) && !alternatives.contains(alternative)) {
+                alternatives.add(alternative);
+            }
+        }
+        return alternatives.isEmpty() ? UNSATISFIABLE : ExpressionUtils.anyOf(alternatives);
+    }
+
+    /*
+     * path 와 상수 비교 하나
+     */
+    private static class Bound {
+        private final Path<?> path;
+        private final Comparable<Object> lower;
+        private final boolean lowerInclusive;
+        private final Comparable<Object> upper;
+        private final boolean upperInclusive;
+
+        private Bound(Path<?> path, Comparable<Object> lower, boolean lowerInclusive, Comparable<Object> upper, boolean upperInclusive) {
+            this.path = path;
+            this.lower = lower;
+            this.lowerInclusive = lowerInclusive;
+            this.upper = upper;
+            this.upperInclusive = upperInclusive;
+        }
+
+        private static Bound of(Predicate predicate) {
+            if (!(predicate instanceof Operation)) {
+                return null;
+            }
+
+            Operation<?> operation = (Operation<?>) predicate;
+            List<Expression<?>> args = operation.getArgs();
+            if (!(args.get(0) instanceof Path)) {
+                return null;
+            }
+            Path<?> path = (Path<?>) args.get(0);
+
+            if (operation.getOperator() == Ops.BETWEEN) {
+                Comparable<Object> from = constant(args.get(1), path);
+                Comparable<Object> to = constant(args.get(2), path);
+                return from == null || to == null ? null : new Bound(path, from, true, to, true);
+            }
+            if (args.size() != 2) {
+                return null;
+            }
+
+            Comparable<Object> value = constant(args.get(1), path);
+            if (value == null) {
+                return null;
+            }
+            if (operation.getOperator() == Ops.EQ) {
+                return new Bound(path, value, true, value, true);
+            }
+            if (operation.getOperator() == Ops.GOE || operation.getOperator() == Ops.GT) {
+                return new Bound(path, value, operation.getOperator() == Ops.GOE, null, false);
+            }
+            if (operation.getOperator() == Ops.LOE || operation.getOperator() == Ops.LT) {
+                return new Bound(path, null, false, value, operation.getOperator() == Ops.LOE);
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Comparable<Object> constant(Expression<?> expression, Path<?> path) {
+            if (!(expression instanceof Constant)) {
+                return null;
+            }
+            Object value = ((Constant<?>) expression).getConstant();
+            // 다른 타입끼리, 또는 DB 와 Java 의 순서가 다를 수 있는 타입은 비교하지 않음
+            if (!isOrdered(path.getType()) || !(value instanceof Comparable) || !path.getType().isInstance(value)) {
+                return null;
+            }
+            return (Comparable<Object>) value;
+        }
+
+        private static boolean isOrdered(Class<?> type) {
+            return Number.class.isAssignableFrom(type)
+                    || Temporal.class.isAssignableFrom(type)
+                    || Date.class.isAssignableFrom(type);
+        }
+    }
+
+    /*
+     * path 하나에 걸린 조건들의 교집합
+     */
+    private static class Range {
+        private final Path<?> path;
+        private Comparable<Object> lower;
+        private boolean lowerInclusive;
+        private Comparable<Object> upper;
+        private boolean upperInclusive;
+
+        private Range(Path<?> path) {
+            this.path = path;
+        }
+
+        private boolean add(Bound bound) {
+            if (bound.lower != null) {
+                int compare = lower == null ? 1 : bound.lower.compareTo(lower);
+                if (compare > 0 || (compare == 0 && !bound.lowerInclusive)) {
+                    lower = bound.lower;
+                    lowerInclusive = bound.lowerInclusive;
+                }
+            }
+            if (bound.upper != null) {
+                int compare = upper == null ? -1 : bound.upper.compareTo(upper);
+                if (compare < 0 || (compare == 0 && !bound.upperInclusive)) {
+                    upper = bound.upper;
+                    upperInclusive = bound.upperInclusive;
+                }
+            }
+            return !isEmpty();
+        }
+
+        private boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            int compare = lower.compareTo(upper);
+            return compare > 0 || (compare == 0 && !(lowerInclusive && upperInclusive));
+        }
+
+        private List<Predicate> toPredicates() {
+            List<Predicate> predicates = new ArrayList<>();
+            if (lower != null && upper != null && lower.compareTo(upper) == 0) {
+                predicates.add(Expressions.booleanOperation(Ops.EQ, path, ConstantImpl.create(lower)));
+            } else if (lower != null && upper != null && lowerInclusive && upperInclusive) {
+                predicates.add(Expressions.booleanOperation(Ops.BETWEEN, path, ConstantImpl.create(lower), ConstantImpl.create(upper)));
+            } else {
+                if (lower != null) {
+                    predicates.add(Expressions.booleanOperation(lowerInclusive ? Ops.GOE : Ops.GT, path, ConstantImpl.create(lower)));
+                }
+                if (upper != null) {
+                    predicates.add(Expressions.booleanOperation(upperInclusive ? Ops.LOE : Ops.LT, path, ConstantImpl.create(upper)));
+                }
+            }
+            return predicates;
+        }
+    }
+}
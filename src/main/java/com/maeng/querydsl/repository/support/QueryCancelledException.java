@@ -0,0 +1,31 @@
+package com.maeng.querydsl.repository.support;
+
+import org.springframework.dao.TransientDataAccessException;
+
+public class QueryCancelledException extends TransientDataAccessException {
+
+    // 요청 deadline / 인터럽트처럼 호출한 쪽 사정으로 취소됐는지. 같은 쿼리를 다른 호출자가 다시 실행하면 성공할 수 있음
+    private final boolean callerBound;
+
+    public QueryCancelledException(String method, String reason) {
+        this(method, reason, false);
+    }
+
+    public QueryCancelledException(String method, String reason, Throwable cause) {
+        this(method, reason, false, cause);
+    }
+
+    public QueryCancelledException(String method, String reason, boolean callerBound) {
+        super("Query of " + method + " was cancelled: " + reason);
+        this.callerBound = callerBound;
+    }
+
+    public QueryCancelledException(String method, String reason, boolean callerBound, Throwable cause) {
+        super("Query of " + method + " was cancelled: " + reason, cause);
+        this.callerBound = callerBound;
+    }
+
+    public boolean isCallerBound() {
+        return callerBound;
+    }
+}
@@ -0,0 +1,35 @@
+package com.maeng.querydsl.repository.support;
+
+import java.time.Duration;
+
+/*
+ * 현재 스레드(요청)의 쿼리 deadline.
+ * QueryGuard 는 남은 시간만큼만 query timeout 을 주고, 이미 지났으면 쿼리를 보내지 않음.
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    public static void start(Duration budget) {
+        DEADLINE_NANOS.set(System.nanoTime() + budget.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /*
+     * deadline 이 없으면 null
+     */
+    static Duration remaining() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return null;
+        }
+
+        return Duration.ofNanos(deadline - System.nanoTime());
+    }
+}
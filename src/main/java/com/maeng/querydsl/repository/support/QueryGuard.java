@@ -0,0 +1,233 @@
+package com.maeng.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/*
+ * 리포지토리 쿼리 실행 시 timeout / 최대 row 수 / 요청 deadline 을 적용함.
+ * timeout, 취소, row 초과는 로그를 남기고 querydsl.query.guard 카운터(method, outcome 태그)로 집계함.
+ * 실행 시간은 SlowQueryRecorder 로 넘김.
+ */
+@Slf4j
+@Component
+public class QueryGuard {
+
+    private static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final QueryGuardProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryRecorder slowQueryRecorder;
+    private final EntityManagerFactory emf;
+    private final ScheduledExecutorService canceller;
+
+    public QueryGuard(QueryGuardProperties properties, MeterRegistry meterRegistry, SlowQueryRecorder slowQueryRecorder,
+                      EntityManagerFactory emf) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryRecorder = slowQueryRecorder;
+        this.emf = emf;
+        this.canceller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "query-guard-cancel");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> List<T> fetch(String method, JPAQuery<T> query) {
+        int maxRows = maxRows(method);
+        long timeout = timeoutMillis(method);
+        query.setHint(TIMEOUT_HINT, jdbcTimeoutMillis(timeout));
+
+        // 페이징 등으로 이미 더 작은 limit 이 있으면 유지
+        Long limit = query.getMetadata().getModifiers().getLimit();
+        if (maxRows > 0 && (limit == null || limit > maxRows)) {
+            query.limit(maxRows + 1L);
+        }
+
+        return checkRowLimit(method, maxRows, execute(method, timeout, query::fetch, List::size, () -> QuerySource.of(query)));
+    }
+
+    public <T> T fetchOne(String method, JPAQuery<T> query) {
+        long timeout = timeoutMillis(method);
+        query.setHint(TIMEOUT_HINT, jdbcTimeoutMillis(timeout));
+        return execute(method, timeout, query::fetchOne, result -> result == null ? 0 : 1, () -> QuerySource.of(query));
+    }
+
+    public <T> List<T> fetch(String method, TypedQuery<T> query) {
+        long timeout = timeoutMillis(method);
+        int maxRows = applyLimits(method, timeout, query);
+        return checkRowLimit(method, maxRows, execute(method, timeout, query::getResultList, List::size, () -> QuerySource.of(query)));
+    }
+
+    /*
+     * native query 용. 결과는 row 마다 select 컬럼 순서의 Object[]
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> fetchRows(String method, Query query) {
+        long timeout = timeoutMillis(method);
+        int maxRows = applyLimits(method, timeout, query);
+        return checkRowLimit(method, maxRows, execute(method, timeout, () -> (List<Object[]>) query.getResultList(), List::size, () -> QuerySource.of(query)));
+    }
+
+    private int applyLimits(String method, long timeout, Query query) {
+        int maxRows = maxRows(method);
+        query.setHint(TIMEOUT_HINT, jdbcTimeoutMillis(timeout));
+
+        if (maxRows > 0 && query.getMaxResults() > maxRows) {
+            query.setMaxResults(maxRows + 1);
+        }
+
+        return maxRows;
+    }
+
+    private <R> R execute(String method, long timeout, Supplier<R> fetch, ToIntFunction<R> rowCount, Supplier<QuerySource> source) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ScheduledFuture<?> cancelTask = scheduleCancel(timeout, cancelled);
+        try {
+            JdbcStatementCapture.clear();
+            long start = System.nanoTime();
+            R result = fetch.get();
+            slowQueryRecorder.record(method, System.nanoTime() - start, rowCount.applyAsInt(result), source);
+            return result;
+        } catch (javax.persistence.QueryTimeoutException
+                 | org.hibernate.QueryTimeoutException
+                 | org.springframework.dao.QueryTimeoutException e) {
+            throw timedOut(method, timeout, e);
+        } catch (RuntimeException e) {
+            // Statement.cancel() 은 드라이버에 따라 timeout 이 아닌 예외로 올라옴
+            if (cancelled.get()) {
+                throw timedOut(method, timeout, e);
+            }
+            throw e;
+        } finally {
+            // 풀 스레드에 바인딩 값이 남지 않도록 비움
+            JdbcStatementCapture.clear();
+            if (cancelTask != null) {
+                cancelTask.cancel(false);
+            }
+        }
+    }
+
+    /*
+     * JDBC timeout 은 초 단위라서 1초로 나누어 떨어지지 않는 timeout 은 그 시점에 Session.cancelQuery() 로 직접 취소함.
+     * 스레드에 묶인 EntityManager (트랜잭션, open-in-view) 가 없으면 쿼리를 실행할 세션을 알 수 없어 JDBC timeout 만 적용됨.
+     */
+    private ScheduledFuture<?> scheduleCancel(long timeout, AtomicBoolean cancelled) {
+        if (timeout % 1000 == 0) {
+            return null;
+        }
+
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (em == null) {
+            return null;
+        }
+
+        Session session = em.unwrap(Session.class);
+        return canceller.schedule(() -> {
+            cancelled.set(true);
+            session.cancelQuery();
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private QueryCancelledException timedOut(String method, long timeout, RuntimeException cause) {
+        log.warn("Query timed out. method={}, timeout={}ms", method, timeout);
+        count(method, "timeout");
+        // 요청 deadline 때문에 메서드 timeout 보다 짧게 준 경우만 호출한 쪽 사정으로 봄
+        boolean deadlineBound = timeout < timeoutOf(method).toMillis();
+        return new QueryCancelledException(method, "timed out after " + timeout + "ms", deadlineBound, cause);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        canceller.shutdownNow();
+    }
+
+    private <T> List<T> checkRowLimit(String method, int maxRows, List<T> result) {
+        if (maxRows > 0 && result.size() > maxRows) {
+            log.warn("Query exceeded row limit. method={}, maxRows={}", method, maxRows);
+            count(method, "row_limit");
+            throw new QueryLimitExceededException(method, maxRows);
+        }
+
+        return result;
+    }
+
+    /*
+     * 이번 쿼리에 줄 timeout (ms). 요청 deadline 이 더 가까우면 남은 시간
+     */
+    private long timeoutMillis(String method) {
+        if (Thread.currentThread().isInterrupted()) {
+            cancel(method, "calling thread was interrupted");
+        }
+
+        Duration timeout = timeoutOf(method);
+        Duration remaining = QueryDeadline.remaining();
+        if (remaining != null) {
+            if (remaining.isNegative() || remaining.isZero()) {
+                cancel(method, "request deadline passed");
+            }
+
+            if (remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+        }
+
+        // 1ms 미만으로 남았으면 올림
+        return Math.max(1, timeout.toMillis());
+    }
+
+    /*
+     * Hibernate 는 ms 를 초로 반올림해서 Statement.setQueryTimeout 에 넘기고 0 이면 timeout 이 없어지므로 초 단위로 올림.
+     * 초 미만 부분은 scheduleCancel 이 맞춤
+     */
+    private static int jdbcTimeoutMillis(long timeout) {
+        return (int) Math.min(Integer.MAX_VALUE, (timeout + 999) / 1000 * 1000);
+    }
+
+    private void cancel(String method, String reason) {
+        log.warn("Query cancelled before execution. method={}, reason={}", method, reason);
+        count(method, "cancelled");
+        throw new QueryCancelledException(method, reason, true);
+    }
+
+    private Duration timeoutOf(String method) {
+        QueryGuardProperties.MethodLimit limit = properties.getMethods().get(method);
+        if (limit != null && limit.getTimeout() != null) {
+            return limit.getTimeout();
+        }
+
+        return properties.getTimeout();
+    }
+
+    private int maxRows(String method) {
+        QueryGuardProperties.MethodLimit limit = properties.getMethods().get(method);
+        if (limit != null && limit.getMaxRows() != null) {
+            return limit.getMaxRows();
+        }
+
+        return properties.getMaxRows();
+    }
+
+    private void count(String method, String outcome) {
+        meterRegistry.counter("querydsl.query.guard", "method", method, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,46 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * querydsl.query-guard.timeout / max-rows 는 기본값,
+ * methods 로 리포지토리 메서드별 재정의
+ *   querydsl.query-guard.methods[MemberQueryDslRepository.searchByWhere].max-rows=1000
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.query-guard")
+public class QueryGuardProperties {
+
+    /**
+     * 쿼리 timeout. JDBC timeout 은 초 단위로 올림해서 걸고, 초로 나누어 떨어지지 않는 값은
+     * 스레드에 묶인 EntityManager 가 있으면 그 시점에 Session.cancelQuery() 로 취소함.
+     * EntityManager 가 없으면 올림한 JDBC timeout 만 적용됨 (예: 300ms -> 1초).
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    /**
+     * 메서드 하나가 가져올 수 있는 최대 row 수. 0 이하면 제한 없음.
+     */
+    private int maxRows = 10_000;
+
+    /**
+     * HTTP 요청 하나가 쿼리에 쓸 수 있는 전체 시간. 설정하지 않으면 deadline 없음 (QueryDeadlineFilter 도 등록되지 않음).
+     */
+    private Duration requestDeadline;
+
+    private Map<String, MethodLimit> methods = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class MethodLimit {
+        private Duration timeout;
+        private Integer maxRows;
+    }
+}
@@ -0,0 +1,10 @@
+package com.maeng.querydsl.repository.support;
+
+import org.springframework.dao.NonTransientDataAccessException;
+
+public class QueryLimitExceededException extends NonTransientDataAccessException {
+
+    public QueryLimitExceededException(String method, int maxRows) {
+        super("Query result of " + method + " exceeds " + maxRows + " rows. Narrow the condition or page the result.");
+    }
+}
@@ -0,0 +1,46 @@
+package com.maeng.querydsl.repository.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/*
+ * Hibernate 쿼리 계획(HQL -> SQL 변환) 캐시 hit/miss.
+ * JDBC 드라이버의 prepared statement 캐시(H2 QUERY_CACHE_SIZE)는 hit/miss 를 노출하지 않아서 측정하지 않음.
+ * querydsl.jdbc.statement-cache.record-stats (Hibernate 통계) 가 꺼져 있으면 등록하지 않음.
+ */
+@Component
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    public QueryPlanCacheMetrics(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+
+        FunctionCounter.builder("querydsl.hibernate.query_plan_cache.hits", statistics, Statistics::getQueryPlanCacheHitCount)
+                .register(registry);
+        FunctionCounter.builder("querydsl.hibernate.query_plan_cache.misses", statistics, Statistics::getQueryPlanCacheMissCount)
+                .register(registry);
+        Gauge.builder("querydsl.hibernate.query_plan_cache.hit_ratio", this, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+    }
+
+    public double hitRatio() {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,34 @@
+package com.maeng.querydsl.repository.support;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.Query;
+
+/*
+ * 느린 쿼리를 캡처할 때만 만들어지는 JPQL.
+ * 바인딩 값은 JPQL 상수가 아니라 실제 JDBC 파라미터를 JdbcStatementCapture 에서 가져옴.
+ */
+final class QuerySource {
+
+    private final String jpql;
+
+    private QuerySource(String jpql) {
+        this.jpql = jpql;
+    }
+
+    static QuerySource of(JPAQuery<?> query) {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new QuerySource(serializer.toString());
+    }
+
+    static QuerySource of(Query query) {
+        return new QuerySource(query.unwrap(org.hibernate.query.Query.class).getQueryString());
+    }
+
+    String getJpql() {
+        return jpql;
+    }
+}
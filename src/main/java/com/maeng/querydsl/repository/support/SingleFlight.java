@@ -0,0 +1,121 @@
+package com.maeng.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/*
+ * 같은 key 로 동시에 들어온 요청은 먼저 온 요청(leader)의 실행 결과를 같이 받음.
+ * 실행이 끝나면 바로 key 를 지우므로 결과를 캐시하지 않음.
+ * 등록/조회는 ConcurrentHashMap 의 bin 단위 CAS 로 처리되어 전역 lock 이 없음.
+ *
+ * - follower 는 자기 QueryDeadline 까지만 기다리고, 넘으면 QueryCancelledException
+ * - leader 가 자기 요청 deadline / 인터럽트로 취소되면 follower 는 그 실패를 물려받지 않고 다시 시도함.
+ *   메서드 timeout, 행 수 제한처럼 같은 쿼리면 다시 나는 실패는 그대로 전달 (재실행하지 않음)
+ * - follower 는 copier 로 복사한 결과를 받음 (leader 결과를 호출자끼리 공유하지 않음)
+ *
+ * querydsl.single_flight{name, role=leader|follower} 카운터 (호출마다 최종 역할 하나만 셈) 와 querydsl.single_flight.ratio (follower 비율) 게이지를 남김.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this(name, meterRegistry, UnaryOperator.identity());
+    }
+
+    public SingleFlight(String name, MeterRegistry meterRegistry, UnaryOperator<V> copier) {
+        this.name = name;
+        this.copier = copier;
+        this.leaders = meterRegistry.counter("querydsl.single_flight", "name", name, "role", "leader");
+        this.followers = meterRegistry.counter("querydsl.single_flight", "name", name, "role", "follower");
+        meterRegistry.gauge("querydsl.single_flight.ratio", Tags.of("name", name), this, SingleFlight::coalescingRatio);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        while (true) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                leaders.increment();
+                return lead(key, flight, loader);
+            }
+
+            V value;
+            try {
+                value = await(existing);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof QueryCancelledException && ((QueryCancelledException) cause).isCallerBound()) {
+                    // leader 요청의 사정으로 취소된 것이므로 다시 시도 (대부분 이번엔 leader 가 됨)
+                    continue;
+                }
+                followers.increment();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (QueryCancelledException e) {
+                followers.increment();
+                throw e;
+            }
+            followers.increment();
+            return copier.apply(value);
+        }
+    }
+
+    public double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+
+        // 지운 다음 완료해야 완료된 flight 에 새 요청이 붙지 않음
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    private V await(CompletableFuture<V> flight) throws ExecutionException {
+        Duration remaining = QueryDeadline.remaining();
+        try {
+            if (remaining == null) {
+                return flight.get();
+            }
+            if (remaining.isNegative() || remaining.isZero()) {
+                throw new QueryCancelledException(name, "deadline already exceeded while waiting for an in-flight query", true);
+            }
+            return flight.get(remaining.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryCancelledException(name, "deadline exceeded while waiting for an in-flight query", true, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryCancelledException(name, "interrupted while waiting for an in-flight query", true, e);
+        }
+    }
+}
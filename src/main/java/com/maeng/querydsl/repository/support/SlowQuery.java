@@ -0,0 +1,20 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.Value;
+import lombok.With;
+
+import java.time.Instant;
+import java.util.List;
+
+@Value
+public class SlowQuery {
+    String method;
+    long elapsedMillis;
+    int rowCount;
+    String jpql;
+    List<String> bindings;
+    String sql;
+    @With
+    String plan;
+    Instant recordedAt;
+}
@@ -0,0 +1,35 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.slow-query")
+public class SlowQueryProperties {
+
+    /**
+     * 이 시간 이상 걸린 쿼리만 기록 대상.
+     */
+    private Duration threshold = Duration.ofMillis(500);
+
+    /**
+     * threshold 를 넘은 쿼리 중 실제로 캡처(EXPLAIN 포함)할 비율. 0.0 ~ 1.0
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 보관할 최악 쿼리 수.
+     */
+    private int capacity = 20;
+
+    /**
+     * 캡처 시 생성된 SQL 로 EXPLAIN 을 수행할지 여부. 끄면 JDBC 파라미터 캡처도 하지 않아 SQL/바인딩이 비어 있음.
+     * 켜면 모든 커넥션 / PreparedStatement 를 proxy 로 감싸므로 빠른 쿼리에도 비용이 있음. 진단할 때만 켤 것.
+     * EXPLAIN 은 요청 스레드가 아닌 별도 스레드와 커넥션에서 실행되고, 끝나면 기록된 쿼리에 plan 이 채워짐.
+     */
+    private boolean explain = false;
+}
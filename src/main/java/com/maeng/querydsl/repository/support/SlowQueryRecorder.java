@@ -0,0 +1,140 @@
+package com.maeng.querydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/*
+ * threshold 를 넘는 쿼리 중 가장 느린 capacity 개를 보관함.
+ * threshold 미만 쿼리는 비교 한 번으로 끝나고, 캡처(JPQL 직렬화)는 샘플링된 느린 쿼리에만 수행됨.
+ * EXPLAIN 은 slow-query-explain 스레드에서 별도 커넥션으로 실행하고 끝나면 plan 을 채움. 밀려 있으면 버림 (plan 은 null).
+ */
+@Slf4j
+@Component
+public class SlowQueryRecorder {
+
+    private final SlowQueryProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final long thresholdNanos;
+    private final PriorityQueue<SlowQuery> worst = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::getElapsedMillis));
+    private final ThreadPoolExecutor explainer;
+
+    public SlowQueryRecorder(SlowQueryProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getCapacity())),
+                r -> {
+                    Thread thread = new Thread(r, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    void record(String method, long elapsedNanos, int rowCount, Supplier<QuerySource> source) {
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        if (!isWorseThanRecorded(elapsedMillis) || ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+
+        QuerySource querySource = source.get();
+        CapturedStatement statement = JdbcStatementCapture.captured();
+        String sql = statement == null ? null : statement.getSql();
+        List<Object> bindings = statement == null ? List.of() : statement.getBindings();
+
+        SlowQuery slowQuery = new SlowQuery(method, elapsedMillis, rowCount, querySource.getJpql(),
+                bindings.stream().map(String::valueOf).collect(Collectors.toList()),
+                sql, null, Instant.now());
+        log.warn("Slow query. method={}, elapsed={}ms, rows={}, jpql={}", method, elapsedMillis, rowCount, slowQuery.getJpql());
+
+        synchronized (worst) {
+            worst.add(slowQuery);
+            if (worst.size() > properties.getCapacity()) {
+                worst.poll();
+            }
+        }
+
+        if (properties.isExplain() && sql != null) {
+            explainer.execute(() -> attachPlan(slowQuery, explain(sql, bindings)));
+        }
+    }
+
+    public List<SlowQuery> worstQueries() {
+        List<SlowQuery> result;
+        synchronized (worst) {
+            result = new ArrayList<>(worst);
+        }
+
+        result.sort(Comparator.comparingLong(SlowQuery::getElapsedMillis).reversed());
+        return result;
+    }
+
+    public void clear() {
+        synchronized (worst) {
+            worst.clear();
+        }
+    }
+
+    /*
+     * 지금까지 요청된 EXPLAIN 이 끝날 때까지 기다림 (테스트용)
+     */
+    void awaitExplains(long timeout, TimeUnit unit) throws Exception {
+        explainer.submit(() -> { }).get(timeout, unit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainer.shutdownNow();
+    }
+
+    private void attachPlan(SlowQuery slowQuery, String plan) {
+        // 그 사이 더 느린 쿼리에 밀려났으면 버림
+        synchronized (worst) {
+            if (worst.remove(slowQuery)) {
+                worst.add(slowQuery.withPlan(plan));
+            }
+        }
+    }
+
+    private boolean isWorseThanRecorded(long elapsedMillis) {
+        synchronized (worst) {
+            return worst.size() < properties.getCapacity() || worst.peek().getElapsedMillis() < elapsedMillis;
+        }
+    }
+
+    private String explain(String sql, List<Object> bindings) {
+        if (sql == null) {
+            return null;
+        }
+
+        try {
+            List<String> rows = jdbcTemplate.query("EXPLAIN " + sql, bindings.toArray(), (rs, rowNum) -> rs.getString(1));
+            return String.join("\n", rows);
+        } catch (RuntimeException e) {
+            log.debug("EXPLAIN failed for {}", sql, e);
+            return "EXPLAIN failed: " + e.getMessage();
+        } finally {
+            // EXPLAIN 자체도 캡처되므로 이 스레드에 남기지 않음
+            JdbcStatementCapture.clear();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.maeng.querydsl.startup;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * spring.main.lazy-initialization 이어도 @Scheduled 메서드가 있는 빈은 바로 만듦.
+ * 지연 생성되면 아무도 주입받지 않는 스케줄 작업(read model 검사, 인덱스 스냅샷)이 등록되지 않음.
+ */
+@Component
+public class ScheduledBeansLazyInitExcludeFilter implements LazyInitializationExcludeFilter {
+
+    @Override
+    public boolean isExcluded(String beanName, BeanDefinition beanDefinition, Class<?> beanType) {
+        if (beanType == null || !AnnotationUtils.isCandidateClass(beanType, Scheduled.class)) {
+            return false;
+        }
+
+        return !MethodIntrospector.selectMethods(beanType, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package com.maeng.querydsl.startup;
+
+import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.repository.MemberQueryDslRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/*
+ * JVM 시작부터 첫 searchByWhere 성공까지의 시간과 부팅 직후 heap 사용량을 측정함.
+ * 로그: startup.ready-ms=.. startup.first-search-ms=.. startup.heap-used-bytes=..
+ * CSV : timestamp,label,ready-ms,first-search-ms,heap-used-bytes
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "startup.benchmark", name = "enabled", havingValue = "true")
+public class StartupBenchmark {
+
+    private static final String CSV_HEADER = "timestamp,label,ready-ms,first-search-ms,heap-used-bytes";
+
+    private final MemberQueryDslRepository memberQueryDslRepository;
+    private final StartupBenchmarkProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    public StartupBenchmark(MemberQueryDslRepository memberQueryDslRepository,
+                            StartupBenchmarkProperties properties,
+                            ConfigurableApplicationContext context) {
+        this.memberQueryDslRepository = memberQueryDslRepository;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void measure() {
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("startup-probe");
+        memberQueryDslRepository.searchByWhere(condition);
+        long firstSearchMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        // 부팅 중 생긴 garbage 를 빼고 live heap 을 비교하기 위해 GC 후 측정
+        System.gc();
+        long heapUsedBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        log.info("startup.ready-ms={} startup.first-search-ms={} startup.heap-used-bytes={} label={}",
+                readyMillis, firstSearchMillis, heapUsedBytes, properties.getLabel());
+
+        if (properties.getReportFile() != null) {
+            appendReport(String.join(",", Instant.now().toString(), properties.getLabel(),
+                    String.valueOf(readyMillis), String.valueOf(firstSearchMillis), String.valueOf(heapUsedBytes)));
+        }
+
+        if (properties.isExitOnComplete()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private void appendReport(String line) {
+        Path report = Paths.get(properties.getReportFile());
+        try {
+            if (Files.notExists(report)) {
+                Files.write(report, (CSV_HEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(report, (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
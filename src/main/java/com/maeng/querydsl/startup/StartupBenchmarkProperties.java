@@ -0,0 +1,28 @@
+package com.maeng.querydsl.startup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "startup.benchmark")
+public class StartupBenchmarkProperties {
+
+    private boolean enabled;
+
+    /**
+     * 측정 후 애플리케이션 종료. AppCDS 아카이브 생성, 반복 측정 시 사용.
+     */
+    private boolean exitOnComplete;
+
+    /**
+     * 측정값을 CSV 로 누적할 파일. 없으면 로그만 남김.
+     */
+    private String reportFile;
+
+    /**
+     * CSV 에 함께 기록할 실행 구분값. (예: cds, no-cds)
+     */
+    private String label = "default";
+}
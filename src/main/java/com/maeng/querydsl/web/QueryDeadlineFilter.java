@@ -0,0 +1,40 @@
+package com.maeng.querydsl.web;
+
+import com.maeng.querydsl.repository.support.QueryDeadline;
+import com.maeng.querydsl.repository.support.QueryGuardProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+ * 요청마다 고정된 쿼리 시간 예산(request-deadline)을 걸어둠. 설정하지 않으면 필터가 등록되지 않음.
+ * 클라이언트 연결이 끊겼는지는 감지하지 않음. 예산을 다 쓴 요청은 남은 쿼리를 보내지 않고,
+ * 진행 중인 쿼리는 남은 시간으로 줄인 timeout 으로 취소됨.
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.query-guard", name = "request-deadline")
+public class QueryDeadlineFilter extends OncePerRequestFilter {
+
+    private final QueryGuardProperties properties;
+
+    public QueryDeadlineFilter(QueryGuardProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryDeadline.start(properties.getRequestDeadline());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryDeadline.clear();
+        }
+    }
+}
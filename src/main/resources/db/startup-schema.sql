@@ -0,0 +1,26 @@
+-- startup 프로필용 스키마 (ddl-auto: none). 엔티티 매핑과 같게 유지할 것
+create table if not exists team (
+    id bigint generated by default as identity primary key,
+    name varchar(255)
+);
+
+create table if not exists member (
+    id bigint generated by default as identity primary key,
+    age integer not null,
+    username varchar(255),
+    team_id bigint,
+    constraint fk_member_team foreign key (team_id) references team (id)
+);
+create index if not exists idx_member_username on member (username);
+create index if not exists idx_member_age on member (age);
+
+create table if not exists member_team_read_model (
+    member_id bigint not null primary key,
+    username varchar(255),
+    age integer not null,
+    team_id bigint,
+    team_name varchar(255)
+);
+create index if not exists idx_read_model_username on member_team_read_model (username);
+create index if not exists idx_read_model_age on member_team_read_model (age);
+create index if not exists idx_read_model_team_name_age on member_team_read_model (team_name, age);
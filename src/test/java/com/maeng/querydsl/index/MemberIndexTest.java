@@ -0,0 +1,119 @@
+package com.maeng.querydsl.index;
+
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.index.enabled=true",
+        "member.index.snapshot=build/tmp/member-index-${random.uuid}.snapshot"
+})
+class MemberIndexTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MemberIndex memberIndex;
+    @Autowired
+    private MemberIndexProperties properties;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        // 인덱스는 별도 커넥션으로 읽으므로 commit 해 둠
+        tx = new TransactionTemplate(transactionManager);
+        // 인덱스 bean 은 테스트끼리 공유되므로 앞 테스트가 넣은 row 를 비움
+        memberIndex.reset();
+    }
+
+    @AfterEach
+    public void after() throws IOException {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'index-member%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'index-team'").executeUpdate();
+        });
+        Files.deleteIfExists(properties.getSnapshot());
+    }
+
+    @Test
+    public void catchUpAndSnapshotTest() {
+        assertThat(memberIndex.isReady()).isTrue();
+
+        Member[] members = tx.execute(status -> {
+            Team team = new Team("index-team");
+            em.persist(team);
+            Member member1 = new Member("index-member1", 10, team);
+            Member member2 = new Member("index-member2", 20);
+            em.persist(member1);
+            em.persist(member2);
+            return new Member[]{member1, member2};
+        });
+        Member member1 = members[0];
+        Member member2 = members[1];
+
+        assertThat(memberIndex.catchUp()).isGreaterThanOrEqualTo(2);
+        assertThat(memberIndex.highWaterMark()).isEqualTo(member2.getId());
+        assertThat(memberIndex.findById(member1.getId()))
+                .hasValueSatisfying(found -> assertThat(found.getTeamName()).isEqualTo("index-team"));
+
+        // 스냅샷으로 옮긴 뒤에도 같은 결과
+        memberIndex.writeSnapshot();
+
+        assertThat(memberIndex.catchUp()).isZero();
+        assertThat(memberIndex.findByUsername("index-member2"))
+                .singleElement()
+                .satisfies(found -> assertThat(found.getTeamId()).isNull());
+        assertThat(memberIndex.findById(member1.getId()))
+                .hasValueSatisfying(found -> assertThat(found.getAge()).isEqualTo(10));
+    }
+
+    @Test
+    public void lateCommittedLowerIdTest() {
+        Member[] members = tx.execute(status -> {
+            Member member1 = new Member("index-member1", 10);
+            Member member2 = new Member("index-member2", 20);
+            Member member3 = new Member("index-member3", 30);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(member3);
+            return new Member[]{member1, member2, member3};
+        });
+        Long lateId = members[1].getId();
+
+        // member2 가 아직 commit 되지 않은 상태를 흉내냄
+        jdbcTemplate.update("delete from member where id = ?", lateId);
+        memberIndex.catchUp();
+        memberIndex.writeSnapshot();
+        assertThat(memberIndex.findById(lateId)).isEmpty();
+
+        // high-water mark 보다 작은 id 가 늦게 commit 됨
+        jdbcTemplate.update("insert into member (id, username, age) values (?, 'index-member2', 20)", lateId);
+
+        assertThat(memberIndex.catchUp()).isEqualTo(1);
+        assertThat(memberIndex.findById(lateId)).isPresent();
+
+        // 스냅샷에도 id 순서로 들어감
+        memberIndex.writeSnapshot();
+        assertThat(memberIndex.findById(lateId)).isPresent();
+        assertThat(memberIndex.findById(members[2].getId())).isPresent();
+        assertThat(memberIndex.findByUsername("index-member2")).hasSize(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.maeng.querydsl.index;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void writeAndMapTest() throws Exception {
+        Path path = dir.resolve("member.snapshot");
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 1L, "teamA"),
+                new MemberTeamDto(5L, "member1", 30, 2L, "팀B"),
+                new MemberTeamDto(9L, "member3", 40, null, null)
+        );
+
+        MemberSnapshot.write(path, rows, 9L);
+        MemberSnapshot snapshot = MemberSnapshot.map(path);
+
+        assertThat(snapshot.size()).isEqualTo(4);
+        assertThat(snapshot.highWaterMark()).isEqualTo(9L);
+        assertThat(Files.exists(dir.resolve("member.snapshot.tmp"))).isFalse();
+
+        assertThat(snapshot.row(snapshot.findRow(5L))).isEqualTo(rows.get(2));
+        assertThat(snapshot.row(snapshot.findRow(9L))).isEqualTo(rows.get(3));
+        assertThat(snapshot.findRow(3L)).isEqualTo(-1);
+        assertThat(snapshot.findRow(10L)).isEqualTo(-1);
+
+        assertThat(snapshot.findByUsername("member1"))
+                .extracting("memberId")
+                .containsExactly(1L, 5L);
+        assertThat(snapshot.findByUsername("member3")).containsExactly(rows.get(3));
+        assertThat(snapshot.findByUsername("member4")).isEmpty();
+    }
+
+    @Test
+    public void emptySnapshotTest() throws Exception {
+        Path path = dir.resolve("empty.snapshot");
+        MemberSnapshot.write(path, List.of(), 0L);
+        MemberSnapshot snapshot = MemberSnapshot.map(path);
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.findRow(1L)).isEqualTo(-1);
+        assertThat(snapshot.findByUsername("member1")).isEmpty();
+    }
+
+    @Test
+    public void rejectUnknownFileTest() throws Exception {
+        Path path = dir.resolve("garbage.snapshot");
+        Files.write(path, new byte[64]);
+
+        assertThatThrownBy(() -> MemberSnapshot.map(path))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectEmptyFileTest() throws Exception {
+        Path path = dir.resolve("zero.snapshot");
+        Files.write(path, new byte[0]);
+
+        assertThatThrownBy(() -> MemberSnapshot.map(path))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectTruncatedFileTest() throws Exception {
+        Path path = dir.resolve("truncated.snapshot");
+        MemberSnapshot.write(path, List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, null, null)
+        ), 2L);
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> MemberSnapshot.map(path))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.maeng.querydsl.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * ./gradlew benchmark --tests '*LoadDriverBenchmark'
+ */
+@Tag("benchmark")
+@ActiveProfiles("load")
+@SpringBootTest(properties = "load.run-on-startup=false")
+class LoadDriverBenchmark {
+
+    @Autowired
+    private MemberDataGenerator generator;
+    @Autowired
+    private LoadDriver driver;
+
+    @Test
+    public void mixedWorkload() throws InterruptedException {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(200_000);
+        spec.setTeams(500);
+        GeneratedDataset dataset = generator.generate(spec);
+
+        LoadTestProperties.Workload workload = new LoadTestProperties.Workload();
+        workload.setThreads(8);
+        workload.setWarmup(Duration.ofSeconds(3));
+        workload.setDuration(Duration.ofSeconds(10));
+
+        LoadReport report = driver.run(dataset, workload);
+        System.out.println(report);
+
+        assertThat(report.totalThroughput()).isPositive();
+    }
+}
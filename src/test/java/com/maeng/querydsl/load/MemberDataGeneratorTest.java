@@ -0,0 +1,45 @@
+package com.maeng.querydsl.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberDataGeneratorTest {
+
+    @Autowired
+    private MemberDataGenerator generator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void generateTest() {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(2_000);
+        spec.setTeams(20);
+        spec.setBatchSize(500);
+
+        GeneratedDataset dataset = generator.generate(spec);
+
+        assertThat(dataset.getTeamIds()).hasSize(20);
+        assertThat(dataset.getMaxMemberId() - dataset.getMinMemberId() + 1).isEqualTo(2_000);
+
+        List<Integer> teamSizes = jdbcTemplate.queryForList(
+                "select count(*) from member where id >= ? group by team_id order by count(*) desc",
+                Integer.class, dataset.getMinMemberId());
+        // 가장 큰 팀이 평균(100명)보다 훨씬 큼
+        assertThat(teamSizes.get(0)).isGreaterThan(300);
+
+        Integer outOfRange = jdbcTemplate.queryForObject(
+                "select count(*) from member where id >= ? and (age < ? or age > ?)",
+                Integer.class, dataset.getMinMemberId(), spec.getMinAge(), spec.getMaxAge());
+        assertThat(outOfRange).isZero();
+    }
+}
@@ -0,0 +1,79 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.load.LoadTestProperties;
+import com.maeng.querydsl.load.MemberDataGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+ * 단일 스캔 대비 parallelism 별 export / 집계 처리량
+ * ./gradlew benchmark --tests '*MemberParallelScanBenchmark'
+ */
+@Tag("benchmark")
+@ActiveProfiles("load")
+@SpringBootTest(properties = {
+        "load.run-on-startup=false",
+        "querydsl.jdbc.pool.maximum-size=20"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MemberParallelScanBenchmark {
+
+    private static final int MEMBERS = 1_000_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private MemberDataGenerator generator;
+    @Autowired
+    private MemberScanRepository memberScanRepository;
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @BeforeAll
+    public void before() {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(MEMBERS);
+        spec.setTeams(1_000);
+        generator.generate(spec);
+    }
+
+    @Test
+    public void compareParallelism() throws InterruptedException {
+        LongAdder sink = new LongAdder();
+        measure("single scan", () -> memberScanRepository.scanAll(member -> sink.add(member.getAge())));
+
+        for (int parallelism : new int[]{1, 2, 4, 8, 16}) {
+            MemberParallelScanProperties properties = new MemberParallelScanProperties();
+            properties.setParallelism(parallelism);
+            MemberParallelScanRepository repository = new MemberParallelScanRepository(emf, properties);
+            try {
+                measure("export   p=" + parallelism, () -> repository.export(member -> sink.add(member.getAge())));
+                measure("ageStats p=" + parallelism, () -> repository.ageStats().getCount());
+            } finally {
+                repository.shutdown();
+            }
+        }
+        System.out.println("checksum=" + sink.sum());
+    }
+
+    private void measure(String name, LongSupplier scan) {
+        scan.getAsLong(); // warmup
+        long best = Long.MAX_VALUE;
+        long rows = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            rows = scan.getAsLong();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-14s rows=%d best=%dms throughput=%.0f rows/s%n",
+                name, rows, best / 1_000_000, rows * 1e9 / best);
+    }
+}
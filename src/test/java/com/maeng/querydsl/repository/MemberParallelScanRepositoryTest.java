@@ -0,0 +1,95 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "member.parallel-scan.parallelism=3",
+        "member.parallel-scan.partitions-per-thread=2",
+        "member.parallel-scan.buffer-size=2"
+})
+class MemberParallelScanRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberParallelScanRepository memberParallelScanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        // 구간마다 별도 커넥션으로 읽으므로 commit 해 둠
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("parallel-team");
+            em.persist(team);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("parallel" + i, i, i % 2 == 0 ? team : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.username like 'parallel%'").executeUpdate();
+            em.createQuery("delete from Team t where t.name = 'parallel-team'").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportInIdOrderTest() {
+        List<MemberTeamDto> exported = new ArrayList<>();
+        long count = memberParallelScanRepository.export(exported::add);
+
+        Long total = tx.execute(status -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        assertThat(count).isEqualTo(total).isEqualTo(exported.size());
+        assertThat(exported).extracting("memberId").isSorted().doesNotHaveDuplicates();
+        assertThat(exported)
+                .filteredOn(member -> "parallel2".equals(member.getUsername()))
+                .singleElement()
+                .satisfies(member -> assertThat(member.getTeamName()).isEqualTo("parallel-team"));
+    }
+
+    @Test
+    public void ageStatsTest() {
+        Object[] expected = tx.execute(status -> em.createQuery(
+                "select count(m), sum(m.age), min(m.age), max(m.age) from Member m", Object[].class).getSingleResult());
+
+        MemberAgeStats stats = memberParallelScanRepository.ageStats();
+
+        assertThat(memberParallelScanRepository.partitions()).hasSizeGreaterThan(1);
+        assertThat(stats.getCount()).isEqualTo(((Number) expected[0]).longValue());
+        assertThat(stats.getSum()).isEqualTo(((Number) expected[1]).longValue());
+        assertThat(stats.getMin()).isEqualTo(((Number) expected[2]).intValue());
+        assertThat(stats.getMax()).isEqualTo(((Number) expected[3]).intValue());
+    }
+
+    @Test
+    public void consumerFailureCancelsExportTest() {
+        assertThatThrownBy(() -> memberParallelScanRepository.export(member -> {
+            throw new IllegalStateException("stop");
+        })).hasMessage("stop");
+
+        // 취소된 뒤에도 executor 는 계속 사용할 수 있음
+        assertThat(memberParallelScanRepository.ageStats().getCount()).isGreaterThanOrEqualTo(50);
+    }
+}
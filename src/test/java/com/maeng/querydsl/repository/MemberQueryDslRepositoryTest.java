@@ -2,17 +2,28 @@ package com.maeng.querydsl.repository;
 
 import com.maeng.querydsl.dto.MemberSearchCondition;
 import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.dto.MemberTeamField;
 import com.maeng.querydsl.entity.Member;
 import com.maeng.querydsl.entity.Team;
+import com.querydsl.core.Tuple;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -22,6 +33,8 @@ class MemberQueryDslRepositoryTest {
     private EntityManager em;
     @Autowired
     private MemberQueryDslRepository memberQueryDslRepository;
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
 
     @Test
     public void basicTest() {
@@ -62,6 +75,45 @@ class MemberQueryDslRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void searchByBuilderNormalizeTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.persist(new Member("member3", 30, teamB));
+        em.flush();
+
+        // username 없이 teamName 만 줘도 팀 조건이 걸림
+        MemberSearchCondition teamOnly = new MemberSearchCondition();
+        teamOnly.setTeamName("teamB");
+        teamOnly.setAgeLoe(20);
+        assertThat(memberQueryDslRepository.searchByBuilder(teamOnly)).extracting("username").containsExactly("member2");
+
+        // 비어 있는 age 범위는 쿼리를 실행하지 않음 (통계는 기본으로 꺼져 있어서 잠시 켬)
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            long executions = statistics.getQueryExecutionCount();
+
+            MemberSearchCondition impossible = new MemberSearchCondition();
+            impossible.setAgeGoe(40);
+            impossible.setAgeLoe(20);
+            assertThat(memberQueryDslRepository.searchByBuilder(impossible)).isEmpty();
+            assertThat(memberQueryDslRepository.searchByWhere(impossible)).isEmpty();
+            assertThat(memberQueryDslRepository.searchMembersReadOnly(impossible)).isEmpty();
+            assertThat(memberQueryDslRepository.searchPage(impossible, PageRequest.of(0, 10)).getTotalElements()).isZero();
+            assertThat(memberQueryDslRepository.searchFields(impossible, MemberTeamField.USERNAME)).isEmpty();
+            assertThat(memberQueryDslRepository.searchMemberIds(impossible)).isEmpty();
+            assertThat(statistics.getQueryExecutionCount()).isEqualTo(executions);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
     @Test
     public void searchByWhereTest() {
         Team teamA = new Team("teamA");
@@ -86,4 +138,156 @@ class MemberQueryDslRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchPageSortTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 20, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age")));
+
+        Page<MemberTeamDto> result = memberQueryDslRepository.searchPage(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        // 같은 나이(20)는 정렬 방향(desc)을 따르는 member.id tie-breaker 로 순서가 고정됨
+        assertThat(result.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    public void searchPageRejectsUnindexedSortTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("teamName"));
+
+        assertThatThrownBy(() -> memberQueryDslRepository.searchPage(condition, pageRequest))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void searchFieldsTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Tuple> result = memberQueryDslRepository.searchFields(condition, MemberTeamField.USERNAME, MemberTeamField.TEAM_ID);
+        assertThat(result).extracting(t -> t.get(0, String.class)).containsExactlyInAnyOrder("member3", "member4");
+        assertThat(result).extracting(t -> t.get(1, Long.class)).containsOnly(teamB.getId());
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<Long> ids = memberQueryDslRepository.searchMemberIds(condition);
+        assertThat(ids).containsExactlyInAnyOrder(member2.getId(), member3.getId(), member4.getId());
+    }
+
+    @Test
+    public void addAgeTest() {
+        Member member = new Member("member1", 10);
+        em.persist(member);
+
+        Optional<Integer> result = memberQueryDslRepository.addAge(member.getId(), 5);
+
+        assertThat(result).contains(15);
+        // 이미 영속 상태인 엔티티도 DB 값과 같아야 함
+        assertThat(member.getAge()).isEqualTo(15);
+        assertThat(memberQueryDslRepository.addAge(-1L, 5)).isEmpty();
+    }
+
+    @Test
+    public void addAgeWithinTest() {
+        Member member = new Member("member1", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        assertThat(memberQueryDslRepository.addAgeWithin(member.getId(), 100, 0, 100)).isEmpty();
+        assertThat(memberQueryDslRepository.addAgeWithin(member.getId(), 90, 0, 100)).contains(100);
+    }
+
+    @Test
+    public void insertIntoTeamWithoutLoadingMembersTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        Team findTeam = em.find(Team.class, teamA.getId());
+
+        // 회원이 있는 팀에 추가해도 insert 만 나가고 members 는 로딩/큐잉되지 않음 (통계는 기본으로 꺼져 있어서 잠시 켬)
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            long statements = statistics.getPrepareStatementCount();
+            long collectionFetches = statistics.getCollectionFetchCount();
+
+            em.persist(new Member("member3", 30, findTeam));
+            memberJpaRepository.saveInTeam("member4", 40, teamA.getId());
+
+            assertThat(((PersistentCollection) findTeam.getMembers()).hasQueuedOperations()).isFalse();
+            em.flush();
+
+            assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(2);
+            assertThat(statistics.getCollectionFetchCount()).isEqualTo(collectionFetches);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+
+        // 세션에서 분리된 팀도 members 를 건드리지 않으므로 LazyInitializationException 없이 추가됨
+        em.clear();
+        em.persist(new Member("member5", 50, findTeam));
+
+        assertThat(memberQueryDslRepository.countByTeam(teamA.getId())).isEqualTo(5);
+
+        Page<Member> page = memberQueryDslRepository.findByTeam(teamA.getId(), PageRequest.of(1, 3, Sort.by("age")));
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting("username").containsExactly("member4", "member5");
+    }
+
+    @Test
+    public void readOnlyTest() {
+        em.persist(new Member("member1", 10));
+        em.flush();
+        em.clear();
+
+        List<Member> result = memberQueryDslRepository.findAllReadOnly();
+        assertThat(result).extracting("username").containsExactly("member1");
+
+        boolean readOnly = em.unwrap(org.hibernate.Session.class).isReadOnly(result.get(0));
+        assertThat(readOnly).isTrue();
+    }
+
+    @Test
+    public void readOnlySeesUnflushedWritesTest() {
+        // 쓰기 트랜잭션에서는 조회 전에 flush 되어 방금 persist 한 회원도 보임
+        em.persist(new Member("member1", 10));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(memberQueryDslRepository.searchMembersReadOnly(condition)).extracting("username").containsExactly("member1");
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.load.LoadTestProperties;
+import com.maeng.querydsl.load.MemberDataGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * 100k 엔티티 조회 시 일반 / read-only / stateless 의 할당량, 유지 heap, GC 비교
+ * ./gradlew benchmark --tests '*MemberReadModeBenchmark'
+ */
+@Tag("benchmark")
+@ActiveProfiles("load")
+@SpringBootTest(properties = {
+        "load.run-on-startup=false",
+        "querydsl.query-guard.max-rows=0"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MemberReadModeBenchmark {
+
+    private static final int MEMBERS = 100_000;
+
+    @Autowired
+    private MemberDataGenerator generator;
+    @Autowired
+    private MemberQueryDslRepository memberQueryDslRepository;
+    @Autowired
+    private MemberScanRepository memberScanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // 측정이 끝날 때까지 결과가 GC 되지 않도록 붙잡아 둠
+    private List<Member> lastResult;
+
+    @BeforeAll
+    public void before() {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(MEMBERS);
+        spec.setTeams(100);
+        generator.generate(spec);
+    }
+
+    @Test
+    public void compareReadModes() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // warmup
+        tx.executeWithoutResult(status -> memberQueryDslRepository.findAll());
+        tx.executeWithoutResult(status -> memberQueryDslRepository.findAllReadOnly());
+        memberScanRepository.scanAll(m -> { });
+
+        tx.executeWithoutResult(status -> measure("managed", memberQueryDslRepository::findAll));
+        tx.executeWithoutResult(status -> measure("read-only", memberQueryDslRepository::findAllReadOnly));
+        measure("stateless", () -> {
+            memberScanRepository.scanAll(m -> { });
+            return List.of();
+        });
+    }
+
+    // 트랜잭션 안에서 호출해 영속성 컨텍스트가 살아있는 상태의 heap 을 측정함
+    private void measure(String name, Supplier<List<Member>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long heapBefore = usedHeapAfterGc();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTime();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        lastResult = read.get();
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long gcCount = gcCount() - gcCountBefore;
+        long gcTime = gcTime() - gcTimeBefore;
+        long retained = usedHeapAfterGc() - heapBefore;
+
+        System.out.printf("%-10s entities=%d time=%dms allocated=%.1fMB retained=%.1fMB gc=%d (%dms) per-100k: allocated=%.1fMB retained=%.1fMB%n",
+                name, MEMBERS, elapsed / 1_000_000, allocated / 1048576.0, retained / 1048576.0, gcCount, gcTime,
+                allocated / 1048576.0 * 100_000 / MEMBERS, retained / 1048576.0 * 100_000 / MEMBERS);
+        lastResult = null;
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private long gcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+}
@@ -0,0 +1,119 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.MemberTeamReadModel;
+import com.maeng.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.read-model.enabled=true",
+        "member.read-model.search=true"
+})
+@Transactional
+class MemberReadModelRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+    @Autowired
+    private TeamJpaRepository teamJpaRepository;
+    @Autowired
+    private MemberQueryDslRepository memberQueryDslRepository;
+    @Autowired
+    private MemberReadModelRepository memberReadModelRepository;
+
+    @Test
+    public void syncOnWriteTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamJpaRepository.save(teamA);
+        teamJpaRepository.save(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        memberJpaRepository.save(member1);
+        memberJpaRepository.save(new Member("member2", 20, teamA));
+        memberJpaRepository.save(new Member("member3", 30, teamB));
+        memberJpaRepository.saveInTeam("member4", 40, teamB.getId());
+
+        teamJpaRepository.rename(teamB.getId(), "teamC");
+        memberQueryDslRepository.bulkAddAge(teamA.getId(), 1);
+        memberQueryDslRepository.addAge(member1.getId(), 5);
+        em.flush();
+
+        assertThat(memberReadModelRepository.check().isConsistent()).isTrue();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        condition.setAgeGoe(35);
+        List<MemberTeamDto> result = memberQueryDslRepository.searchByWhere(condition);
+        assertThat(result).extracting("username").containsExactly("member4");
+
+        condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        assertThat(memberQueryDslRepository.searchByWhere(condition)).extracting("age").containsExactly(16);
+    }
+
+    @Test
+    public void saveInTeamKeepsTeamProxyTest() {
+        Team teamA = new Team("teamA");
+        teamJpaRepository.save(teamA);
+        em.flush();
+        em.clear();
+
+        Member member = memberJpaRepository.saveInTeam("member1", 10, teamA.getId());
+        em.flush();
+
+        assertThat(Hibernate.isInitialized(member.getTeam())).isFalse();
+        assertThat(em.find(MemberTeamReadModel.class, member.getId()).getTeamName()).isEqualTo("teamA");
+    }
+
+    @Test
+    public void bulkUpdateRefreshesManagedRowsTest() {
+        Team teamA = new Team("teamA");
+        teamJpaRepository.save(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        memberJpaRepository.save(member1);
+        em.flush();
+
+        MemberTeamReadModel row = em.find(MemberTeamReadModel.class, member1.getId());
+
+        teamJpaRepository.rename(teamA.getId(), "teamB");
+        memberReadModelRepository.addAgeForTeam(teamA.getId(), 1);
+        memberReadModelRepository.changeAge(member1.getId(), 30);
+
+        // 벌크 update 후에도 같은 트랜잭션에서 로딩된 행이 DB 와 같음
+        assertThat(row.getTeamName()).isEqualTo("teamB");
+        assertThat(row.getAge()).isEqualTo(30);
+
+        memberReadModelRepository.addAgeForTeam(teamA.getId(), 1);
+        assertThat(row.getAge()).isEqualTo(31);
+    }
+
+    @Test
+    public void checkAndRebuildTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        // repository 를 거치지 않은 쓰기는 read model 에 반영되지 않음
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+
+        assertThat(memberReadModelRepository.check().getMissing()).isEqualTo(2);
+
+        memberReadModelRepository.rebuild();
+
+        assertThat(memberReadModelRepository.check().isConsistent()).isTrue();
+    }
+}
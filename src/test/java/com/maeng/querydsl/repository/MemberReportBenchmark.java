@@ -0,0 +1,77 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.load.MemberDataGenerator;
+import com.maeng.querydsl.load.LoadTestProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * window function vs 상관 서브쿼리
+ * ./gradlew benchmark --tests '*MemberReportBenchmark'
+ */
+@Tag("benchmark")
+@ActiveProfiles("load")
+@SpringBootTest(properties = {
+        "load.run-on-startup=false",
+        "querydsl.query-guard.timeout=10m",
+        "querydsl.query-guard.max-rows=0"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MemberReportBenchmark {
+
+    private static final int MEMBERS = 50_000;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private MemberDataGenerator generator;
+    @Autowired
+    private MemberReportRepository memberReportRepository;
+
+    @BeforeAll
+    public void before() {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(MEMBERS);
+        spec.setTeams(200);
+        generator.generate(spec);
+    }
+
+    @Test
+    public void olderThanTeamAverage() {
+        List<?> window = measure("older-than-team-average (window)", memberReportRepository::findOlderThanTeamAverage);
+        List<?> subquery = measure("older-than-team-average (subquery)", memberReportRepository::findOlderThanTeamAverageBySubquery);
+
+        assertThat(window).hasSameSizeAs(subquery);
+    }
+
+    @Test
+    public void oldestPerTeam() {
+        List<?> window = measure("oldest-per-team (window)", () -> memberReportRepository.findOldestPerTeam(3));
+        List<?> subquery = measure("oldest-per-team (subquery)", () -> memberReportRepository.findOldestPerTeamBySubquery(3));
+
+        assertThat(window).hasSameSizeAs(subquery);
+    }
+
+    private List<?> measure(String name, Supplier<List<?>> query) {
+        List<?> result = query.get();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            result = query.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-40s members=%d rows=%d best=%.1fms%n", name, MEMBERS, result.size(), best / 1_000_000.0);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.dto.MemberTeamDto;
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberReportRepositoryTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberReportRepository memberReportRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 25, teamA));
+        em.persist(new Member("member4", 30, teamB));
+        em.persist(new Member("member5", 40, teamB));
+        em.persist(new Member("member6", 40, teamB));
+        em.persist(new Member("member7", 50));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void olderThanTeamAverageTest() {
+        List<MemberTeamDto> result = memberReportRepository.findOlderThanTeamAverage();
+
+        // teamA 평균 18.3, teamB 평균 36.7, 팀 없는 회원 제외
+        assertThat(result).extracting("username").containsExactly("member2", "member3", "member5", "member6");
+        assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberReportRepository.findOlderThanTeamAverageBySubquery());
+    }
+
+    @Test
+    public void oldestPerTeamTest() {
+        List<MemberTeamDto> result = memberReportRepository.findOldestPerTeam(2);
+
+        // teamB 는 40살 동점 -> id 가 작은 member5, member6
+        assertThat(result).extracting("username").containsExactly("member2", "member3", "member5", "member6");
+        assertThat(result).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(memberReportRepository.findOldestPerTeamBySubquery(2));
+
+        assertThat(memberReportRepository.findOldestPerTeam(1)).extracting("username").containsExactly("member3", "member5");
+    }
+}
@@ -0,0 +1,97 @@
+package com.maeng.querydsl.repository;
+
+import com.maeng.querydsl.entity.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "member.write-behind.enabled=true",
+        "member.write-behind.flush-interval=1h",
+        "member.write-behind.max-retries=1"
+})
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberWriteBehindBuffer buffer;
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        // 버퍼는 자체 트랜잭션으로 commit 하므로 직접 정리
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Member m where m.username like 'write-behind%'").executeUpdate());
+    }
+
+    @Test
+    public void coalesceAndFlushTest() {
+        Member member = new Member("write-behind1", 10);
+
+        buffer.write(member);
+        buffer.write(member);
+        buffer.write(new Member("write-behind2", 20));
+
+        assertThat(buffer.depth()).isEqualTo(2);
+        assertThat(memberJpaRepository.findByUsername("write-behind1")).isEmpty();
+
+        buffer.flush();
+
+        assertThat(buffer.depth()).isZero();
+        assertThat(member.getId()).isNotNull();
+        assertThat(memberJpaRepository.findByUsername("write-behind1")).hasSize(1);
+        assertThat(memberJpaRepository.findByUsername("write-behind2")).hasSize(1);
+    }
+
+    @Test
+    public void failedMemberRetryAndDeadLetterTest() {
+        // username 컬럼(varchar 255)보다 길어서 insert 가 실패함
+        Member invalid = new Member("write-behind-" + String.join("", Collections.nCopies(300, "x")), 10);
+        Member valid = new Member("write-behind3", 20);
+
+        buffer.write(invalid);
+        buffer.write(valid);
+
+        assertThatThrownBy(() -> buffer.flush()).isInstanceOf(RuntimeException.class);
+
+        // 실패한 회원만 다시 버퍼에 들어가고 롤백된 id 는 남지 않음
+        assertThat(valid.getId()).isNotNull();
+        assertThat(memberJpaRepository.findByUsername("write-behind3")).hasSize(1);
+        assertThat(invalid.getId()).isNull();
+        assertThat(buffer.depth()).isEqualTo(1);
+
+        assertThatThrownBy(() -> buffer.flush()).isInstanceOf(RuntimeException.class);
+
+        assertThat(buffer.depth()).isZero();
+        assertThat(buffer.deadLetters()).containsExactly(invalid);
+        assertThat(invalid.getId()).isNull();
+    }
+
+    @Test
+    @DirtiesContext
+    public void writeAfterDrainFlushesImmediatelyTest() throws InterruptedException {
+        buffer.drain();
+
+        Member member = new Member("write-behind4", 40);
+        buffer.write(member);
+
+        // 종료된 뒤에는 flush 해 줄 스레드가 없으므로 write() 가 바로 commit 함
+        assertThat(buffer.depth()).isZero();
+        assertThat(member.getId()).isNotNull();
+        assertThat(memberJpaRepository.findByUsername("write-behind4")).hasSize(1);
+    }
+}
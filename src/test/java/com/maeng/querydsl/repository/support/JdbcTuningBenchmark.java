@@ -0,0 +1,74 @@
+package com.maeng.querydsl.repository.support;
+
+import com.maeng.querydsl.QuerydslApplication;
+import com.maeng.querydsl.load.GeneratedDataset;
+import com.maeng.querydsl.load.LoadDriver;
+import com.maeng.querydsl.load.LoadOperation;
+import com.maeng.querydsl.load.LoadReport;
+import com.maeng.querydsl.load.LoadTestProperties;
+import com.maeng.querydsl.load.MemberDataGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+ * 풀 크기 / statement 캐시 조합별 searchByWhere 처리량과 Hibernate 쿼리 계획 캐시 hit 비율. 조합마다 별도 컨텍스트와 내장 DB 를 띄움.
+ * ./gradlew benchmark --tests '*JdbcTuningBenchmark'
+ */
+@Tag("benchmark")
+class JdbcTuningBenchmark {
+
+    private static final int THREADS = 16;
+
+    @Test
+    public void comparePoolSizeAndStatementCache() throws InterruptedException {
+        StringBuilder summary = new StringBuilder("pool cache  search/s  plan-hit\n");
+        for (boolean cache : new boolean[]{true, false}) {
+            for (int poolSize : new int[]{2, 4, 8, 16}) {
+                try (ConfigurableApplicationContext context = start(poolSize, cache)) {
+                    LoadReport report = run(context);
+                    double hitRatio = context.getBean(QueryPlanCacheMetrics.class).hitRatio();
+                    summary.append(String.format("%4d %-5s %9.0f  %9.3f%n",
+                            poolSize, cache, report.throughput(LoadOperation.SEARCH_BY_WHERE), hitRatio));
+                }
+            }
+        }
+        System.out.println(summary);
+    }
+
+    private ConfigurableApplicationContext start(int poolSize, boolean cache) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .profiles("load")
+                .properties(
+                        "load.run-on-startup=false",
+                        "spring.datasource.url=jdbc:h2:mem:tuning-" + poolSize + "-" + cache + ";DB_CLOSE_DELAY=-1",
+                        "querydsl.jdbc.pool.maximum-size=" + poolSize,
+                        "querydsl.jdbc.statement-cache.enabled=" + cache)
+                .run();
+    }
+
+    private LoadReport run(ConfigurableApplicationContext context) throws InterruptedException {
+        LoadTestProperties.Dataset spec = new LoadTestProperties.Dataset();
+        spec.setMembers(100_000);
+        spec.setTeams(500);
+        GeneratedDataset dataset = context.getBean(MemberDataGenerator.class).generate(spec);
+
+        Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        mix.put(LoadOperation.SEARCH_BY_WHERE, 100);
+
+        LoadTestProperties.Workload workload = new LoadTestProperties.Workload();
+        workload.setThreads(THREADS);
+        workload.setWarmup(Duration.ofSeconds(2));
+        workload.setDuration(Duration.ofSeconds(5));
+        workload.setMix(mix);
+
+        LoadReport report = context.getBean(LoadDriver.class).run(dataset, workload);
+        System.out.println(report);
+        return report;
+    }
+}
@@ -0,0 +1,86 @@
+package com.maeng.querydsl.repository.support;
+
+import com.maeng.querydsl.entity.Member;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "querydsl.jdbc.pool.maximum-size=7",
+        "querydsl.jdbc.pool.minimum-idle=2",
+        "querydsl.jdbc.statement-cache.size=64",
+        "querydsl.jdbc.statement-cache.record-stats=true"
+})
+@Transactional
+class JdbcTuningTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private QueryPlanCacheMetrics queryPlanCacheMetrics;
+
+    @Test
+    public void applyPoolSettingsTest() throws Exception {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+
+        assertThat(hikari.getMaximumPoolSize()).isEqualTo(7);
+        assertThat(hikari.getMinimumIdle()).isEqualTo(2);
+        assertThat(hikari.getDataSourceProperties()).containsEntry("QUERY_CACHE_SIZE", "64");
+    }
+
+    @Test
+    public void publishMetricsTest() {
+        em.persist(new Member("member1", 10));
+        for (int i = 0; i < 3; i++) {
+            em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", "member1")
+                    .getResultList();
+        }
+
+        assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.idle").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+
+        assertThat(meterRegistry.find("querydsl.hibernate.query_plan_cache.hits").functionCounter().count()).isPositive();
+        assertThat(queryPlanCacheMetrics.hitRatio()).isPositive();
+    }
+
+    @Test
+    public void validateTest() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        JdbcTuningProperties valid = new JdbcTuningProperties();
+        assertThat(validator.validate(valid)).isEmpty();
+
+        JdbcTuningProperties invalid = new JdbcTuningProperties();
+        invalid.setFetchSize(-1);
+        invalid.getPool().setMaximumSize(4);
+        invalid.getPool().setMinimumIdle(8);
+        invalid.getPool().setConnectionTimeout(Duration.ofMillis(100));
+        invalid.getStatementCache().setSize(0);
+
+        assertThat(validator.validate(invalid))
+                .extracting(violation -> violation.getPropertyPath().toString())
+                .containsExactlyInAnyOrder(
+                        "fetchSize",
+                        "pool.minimumIdleWithinMaximum",
+                        "pool.connectionTimeoutSupported",
+                        "statementCache.size");
+    }
+}
@@ -0,0 +1,109 @@
+package com.maeng.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.BooleanPath;
+import com.querydsl.core.types.dsl.DatePath;
+import com.querydsl.core.types.dsl.Expressions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static com.maeng.querydsl.entity.QMember.member;
+import static com.maeng.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PredicateOptimizerTest {
+
+    @Test
+    public void dropNoOpTermsTest() {
+        assertThat(PredicateOptimizer.optimize(null)).isNull();
+        assertThat(PredicateOptimizer.optimize(new BooleanBuilder())).isNull();
+        assertThat(PredicateOptimizer.optimize(new BooleanBuilder().and(null).and(Expressions.TRUE))).isNull();
+
+        Predicate optimized = PredicateOptimizer.optimize(new BooleanBuilder()
+                .and(null)
+                .and(member.username.eq("member1"))
+                .and(team.name.isNotNull()));
+        assertThat(optimized).isEqualTo(member.username.eq("member1").and(team.name.isNotNull()));
+    }
+
+    @Test
+    public void mergeRangesTest() {
+        assertThat(PredicateOptimizer.optimize(member.age.goe(10).and(member.age.loe(20))))
+                .isEqualTo(member.age.between(10, 20));
+        assertThat(PredicateOptimizer.optimize(member.age.goe(10).and(member.age.goe(15)).and(member.age.loe(30)).and(member.age.lt(25))))
+                .isEqualTo(member.age.goe(15).and(member.age.lt(25)));
+        assertThat(PredicateOptimizer.optimize(member.age.goe(20).and(member.age.loe(20))))
+                .isEqualTo(member.age.eq(20));
+        assertThat(PredicateOptimizer.optimize(member.age.between(10, 30).and(member.age.eq(25))))
+                .isEqualTo(member.age.eq(25));
+    }
+
+    @Test
+    public void foldDuplicatesTest() {
+        BooleanBuilder builder = new BooleanBuilder()
+                .and(member.username.eq("member1"))
+                .and(team.name.eq("teamA"))
+                .and(member.username.eq("member1"))
+                .and(team.name.eq("teamA").or(team.name.eq("teamA")));
+
+        assertThat(PredicateOptimizer.optimize(builder))
+                .isEqualTo(member.username.eq("member1").and(team.name.eq("teamA")));
+    }
+
+    @Test
+    public void unsatisfiableTest() {
+        assertThat(PredicateOptimizer.isUnsatisfiable(PredicateOptimizer.optimize(
+                member.age.goe(40).and(member.age.loe(20))))).isTrue();
+        assertThat(PredicateOptimizer.isUnsatisfiable(PredicateOptimizer.optimize(
+                member.age.gt(20).and(member.age.loe(20))))).isTrue();
+        assertThat(PredicateOptimizer.isUnsatisfiable(PredicateOptimizer.optimize(
+                ExpressionUtils.allOf(member.username.eq("member1"), Expressions.FALSE)))).isTrue();
+    }
+
+    @Test
+    public void mergeTemporalRangesTest() {
+        DatePath<LocalDate> birthday = Expressions.datePath(LocalDate.class, "birthday");
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 12, 31);
+
+        assertThat(PredicateOptimizer.optimize(birthday.goe(from).and(birthday.loe(to))))
+                .isEqualTo(birthday.between(from, to));
+        assertThat(PredicateOptimizer.isUnsatisfiable(PredicateOptimizer.optimize(
+                birthday.goe(to).and(birthday.lt(from))))).isTrue();
+    }
+
+    @Test
+    public void keepStringComparisonsTest() {
+        // collation 에 따라 'member1' = 'MEMBER1' 일 수 있으므로 문자열은 합치거나 모순으로 보지 않음
+        Predicate equals = member.username.eq("member1").and(member.username.eq("MEMBER1"));
+        assertThat(PredicateOptimizer.optimize(equals)).isEqualTo(equals);
+
+        Predicate range = member.username.goe("a").and(member.username.loe("b"));
+        assertThat(PredicateOptimizer.optimize(range)).isEqualTo(range);
+    }
+
+    @Test
+    public void booleanPathTermTest() {
+        // Path 이면서 Predicate 인 BooleanPath 와 같은 path 의 비교가 함께 있어도 됨
+        BooleanPath active = Expressions.booleanPath("active");
+        Predicate predicate = active.and(active.eq(true));
+
+        assertThat(PredicateOptimizer.optimize(predicate)).isEqualTo(predicate);
+    }
+
+    @Test
+    public void simplifyOrTest() {
+        BooleanExpression emptyBranch = member.age.goe(40).and(member.age.loe(20));
+
+        assertThat(PredicateOptimizer.optimize(emptyBranch.or(member.username.eq("member1"))))
+                .isEqualTo(member.username.eq("member1"));
+        assertThat(PredicateOptimizer.isUnsatisfiable(PredicateOptimizer.optimize(
+                ExpressionUtils.or(emptyBranch, emptyBranch)))).isTrue();
+        assertThat(PredicateOptimizer.optimize(member.username.eq("member1").or(Expressions.TRUE)))
+                .isNull();
+    }
+}
@@ -0,0 +1,73 @@
+package com.maeng.querydsl.repository.support;
+
+import com.maeng.querydsl.dto.MemberSearchCondition;
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.repository.MemberQueryDslRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "querydsl.query-guard.methods[MemberQueryDslRepository.searchByWhere].max-rows=2")
+@Transactional
+class QueryGuardTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberQueryDslRepository memberQueryDslRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.persist(new Member("member3", 30));
+    }
+
+    @AfterEach
+    public void after() {
+        QueryDeadline.clear();
+    }
+
+    @Test
+    public void rowLimitTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThatThrownBy(() -> memberQueryDslRepository.searchByWhere(condition))
+                .isInstanceOf(QueryLimitExceededException.class);
+
+        condition.setAgeGoe(20);
+        assertThat(memberQueryDslRepository.searchByWhere(condition)).hasSize(2);
+
+        double breaches = meterRegistry.counter("querydsl.query.guard",
+                "method", "MemberQueryDslRepository.searchByWhere", "outcome", "row_limit").count();
+        assertThat(breaches).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void deadlinePassedTest() {
+        QueryDeadline.start(Duration.ZERO);
+
+        assertThatThrownBy(() -> memberQueryDslRepository.findAll())
+                .isInstanceOf(QueryCancelledException.class);
+    }
+
+    @Test
+    public void subSecondDeadlineTest() {
+        // 1초 미만 budget 도 JDBC timeout 이 0(무제한)이 되지 않고, 끝난 쿼리는 취소되지 않음
+        QueryDeadline.start(Duration.ofMillis(300));
+
+        assertThat(memberQueryDslRepository.findAll()).hasSizeGreaterThanOrEqualTo(3);
+    }
+}
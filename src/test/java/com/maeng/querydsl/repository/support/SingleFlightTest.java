@@ -0,0 +1,198 @@
+package com.maeng.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    public void coalesceConcurrentCallsTest() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> flight.execute("key", () -> {
+                leaderStarted.countDown();
+                await(release);
+                return executions.incrementAndGet();
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            Future<Integer> follower = executor.submit(() -> flight.execute("key", executions::incrementAndGet));
+            // follower 가 flight 에 붙을 시간을 줌
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(executions).hasValue(1);
+            assertThat(flight.coalescingRatio()).isEqualTo(0.5);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 끝난 flight 는 재사용하지 않음
+        assertThat(flight.execute("key", executions::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    public void failurePropagatesTest() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> flight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(flight.execute("key", () -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void followerWaitsOnlyUntilOwnDeadlineTest() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> flight.execute("key", () -> {
+                leaderStarted.countDown();
+                await(release);
+                return 1;
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            Future<Integer> follower = executor.submit(() -> {
+                QueryDeadline.start(Duration.ofMillis(100));
+                try {
+                    return flight.execute("key", () -> 2);
+                } finally {
+                    QueryDeadline.clear();
+                }
+            });
+
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(QueryCancelledException.class);
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerRetriesWhenLeaderCancelledTest() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> flight.execute("key", () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw new QueryCancelledException("test", "request deadline passed", true);
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            Future<Integer> follower = executor.submit(() -> flight.execute("key", () -> 2));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(QueryCancelledException.class);
+            // leader 의 취소를 물려받지 않고 직접 실행함. 최종 역할(leader)로만 셈
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+            assertThat(flight.coalescingRatio()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void leaderRowLimitNotRetriedTest() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", new SimpleMeterRegistry());
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> flight.execute("key", () -> {
+                executions.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                throw new QueryLimitExceededException("test", 10);
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            Future<Integer> follower = executor.submit(() -> flight.execute("key", () -> {
+                executions.incrementAndGet();
+                return 2;
+            }));
+            Thread.sleep(100);
+            release.countDown();
+
+            // 같은 쿼리는 다시 실행해도 행 수 제한에 걸리므로 실패를 그대로 받음
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(QueryLimitExceededException.class);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(QueryLimitExceededException.class);
+            assertThat(executions).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followerGetsCopyTest() throws Exception {
+        SingleFlight<String, List<String>> flight = new SingleFlight<>("test", new SimpleMeterRegistry(), ArrayList::new);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> leader = executor.submit(() -> flight.execute("key", () -> {
+                leaderStarted.countDown();
+                await(release);
+                return new ArrayList<>(Collections.singletonList("a"));
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            Future<List<String>> follower = executor.submit(() -> flight.execute("key", Collections::emptyList));
+            Thread.sleep(100);
+            release.countDown();
+
+            List<String> leaderResult = leader.get(5, TimeUnit.SECONDS);
+            List<String> followerResult = follower.get(5, TimeUnit.SECONDS);
+            assertThat(followerResult).containsExactly("a").isNotSameAs(leaderResult);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
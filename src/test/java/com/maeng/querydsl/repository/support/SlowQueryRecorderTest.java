@@ -0,0 +1,67 @@
+package com.maeng.querydsl.repository.support;
+
+import com.maeng.querydsl.entity.Member;
+import com.maeng.querydsl.repository.MemberQueryDslRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "querydsl.slow-query.threshold=0ms",
+        "querydsl.slow-query.capacity=3",
+        "querydsl.slow-query.explain=true"
+})
+@Transactional
+class SlowQueryRecorderTest {
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MemberQueryDslRepository memberQueryDslRepository;
+    @Autowired
+    private SlowQueryEndpoint slowQueryEndpoint;
+    @Autowired
+    private SlowQueryRecorder slowQueryRecorder;
+
+    @Test
+    public void recordTest() throws Exception {
+        slowQueryEndpoint.clear();
+        em.persist(new Member("member1", 10));
+
+        memberQueryDslRepository.findByUsername("member1");
+        memberQueryDslRepository.findAll();
+        memberQueryDslRepository.findAll();
+        // EXPLAIN 은 별도 스레드에서 실행됨
+        slowQueryRecorder.awaitExplains(5, TimeUnit.SECONDS);
+
+        List<SlowQuery> result = slowQueryEndpoint.slowQueries();
+        assertThat(result).hasSize(3);
+
+        SlowQuery byUsername = result.stream()
+                .filter(q -> q.getMethod().equals("MemberQueryDslRepository.findByUsername"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(byUsername.getJpql()).contains("member1.username = ?1");
+        // QueryGuard 가 붙인 limit (max-rows + 1) 까지 JDBC 순서대로 남음
+        assertThat(byUsername.getBindings()).containsExactly("member1", "10001");
+        assertThat(byUsername.getSql()).containsIgnoringCase("limit ?");
+        assertThat(byUsername.getPlan())
+                .doesNotStartWith("EXPLAIN failed")
+                .containsIgnoringCase("PUBLIC.MEMBER");
+
+        SlowQuery findAll = result.stream()
+                .filter(q -> q.getMethod().equals("MemberQueryDslRepository.findAll"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(findAll.getBindings()).containsExactly("10001");
+        assertThat(findAll.getSql()).doesNotContainIgnoringCase("username =");
+        assertThat(findAll.getPlan()).doesNotStartWith("EXPLAIN failed");
+    }
+}